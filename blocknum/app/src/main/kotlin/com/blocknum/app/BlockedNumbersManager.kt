@@ -1,8 +1,10 @@
 package com.blocknum.app
 
+import android.content.ContentProviderOperation
 import android.content.ContentValues
 import android.content.Context
 import android.database.sqlite.SQLiteDatabase
+import android.os.SystemClock
 import android.provider.BlockedNumberContract
 import android.util.Log
 
@@ -22,14 +24,34 @@ import android.util.Log
  *   - API 30 (Android 11): 分区存储强制，本类不使用外部存储所以无影响
  *   - API 33+ (Android 13+): 权限体系更新，本类通过 ContentProvider 操作不受影响
  */
-class BlockedNumbersManager(private val context: Context) {
+class BlockedNumbersManager(
+    private val context: Context,
+    /** 标准 API 每次 applyBatch 提交的行数（一次 Binder 调用） */
+    private val batchSize: Int = DEFAULT_BATCH_SIZE
+) {
 
     enum class AccessMode { STANDARD_API, ROOT, UNAVAILABLE }
 
-    data class ImportResult(val added: Int, val skipped: Int, val failed: Int)
+    data class ImportResult(
+        val added: Int,
+        val skipped: Int,
+        val failed: Int,
+        /** 整个导入（含清空）的耗时 */
+        val elapsedMs: Long = 0
+    ) {
+        /** 每秒写入的行数 */
+        val rowsPerSecond: Long
+            get() = if (elapsedMs > 0) added * 1000L / elapsedMs else 0
+    }
 
     companion object {
         private const val TAG = "BlockedNumbersMgr"
+
+        /**
+         * 默认批大小：几万条号码只需要几百次 Binder 调用，
+         * 单批的 Parcel 也远小于 Binder 事务缓冲区的上限
+         */
+        const val DEFAULT_BATCH_SIZE = 250
     }
 
     // ── 访问模式检测 ────────────────────────────────────────────
@@ -89,10 +111,17 @@ class BlockedNumbersManager(private val context: Context) {
         numbers: List<String>,
         mode: AccessMode,
         replace: Boolean
-    ): ImportResult = when (mode) {
-        AccessMode.STANDARD_API -> importViaStandard(numbers, replace)
-        AccessMode.ROOT         -> importViaRoot(numbers, replace)
-        AccessMode.UNAVAILABLE  -> ImportResult(0, 0, numbers.size)
+    ): ImportResult {
+        val start = SystemClock.elapsedRealtime()
+        val result = when (mode) {
+            AccessMode.STANDARD_API -> importViaStandard(numbers, replace)
+            AccessMode.ROOT         -> importViaRoot(numbers, replace)
+            AccessMode.UNAVAILABLE  -> ImportResult(0, 0, numbers.size)
+        }
+        return result.copy(elapsedMs = SystemClock.elapsedRealtime() - start).also {
+            Log.i(TAG, "import ($mode): +${it.added} skipped=${it.skipped} failed=${it.failed} " +
+                "in ${it.elapsedMs} ms (${it.rowsPerSecond} rows/s)")
+        }
     }
 
     // ── 标准 API 实现 ───────────────────────────────────────────
@@ -130,52 +159,114 @@ class BlockedNumbersManager(private val context: Context) {
         return numbers
     }
 
+    /**
+     * 标准 API 批量写入
+     * 每 [batchSize] 行一次 applyBatch，而不是每行一次 insert：Binder 往返次数降到 1/batchSize。
+     * AOSP 的 BlockedNumberProvider 没有重写 applyBatch，默认实现逐行调用 insert，每行各自一个事务，
+     * 所以批内不会长时间持有数据库锁（也因此 withYieldAllowed 没有意义，不设置）。
+     */
     private fun importViaStandard(numbers: List<String>, replace: Boolean): ImportResult {
-        var added = 0; var skipped = 0; var failed = 0
+        var skipped = 0
 
         if (replace) {
-            // 删除全部现有记录
-            try {
-                context.contentResolver.query(
-                    BlockedNumberContract.BlockedNumbers.CONTENT_URI,
-                    arrayOf(BlockedNumberContract.BlockedNumbers.COLUMN_ID),
-                    null, null, null
-                )?.use { cursor ->
-                    val colId = cursor.getColumnIndexOrThrow(BlockedNumberContract.BlockedNumbers.COLUMN_ID)
-                    val ids = mutableListOf<Long>()
-                    while (cursor.moveToNext()) ids.add(cursor.getLong(colId))
-                    ids.forEach { id ->
-                        context.contentResolver.delete(
-                            android.net.Uri.withAppendedPath(
-                                BlockedNumberContract.BlockedNumbers.CONTENT_URI, id.toString()
-                            ), null, null
-                        )
-                    }
-                }
-            } catch (e: Exception) {
-                Log.e(TAG, "clearStandard: ${e.message}")
-            }
+            clearStandard()
         }
 
-        val existing = if (!replace) readViaStandard().toHashSet() else hashSetOf()
+        // 合并模式跳过已有号码；同一文件里的重复号码也只写一次
+        val seen = if (!replace) readViaStandard().toHashSet() else hashSetOf()
+        val toAdd = ArrayList<String>(numbers.size)
         numbers.forEach { number ->
             val trimmed = number.trim()
-            if (trimmed.isEmpty()) { skipped++; return@forEach }
-            if (!replace && existing.contains(trimmed)) { skipped++; return@forEach }
-            try {
-                val values = ContentValues().apply {
-                    put(BlockedNumberContract.BlockedNumbers.COLUMN_ORIGINAL_NUMBER, trimmed)
+            if (trimmed.isEmpty() || !seen.add(trimmed)) skipped++ else toAdd.add(trimmed)
+        }
+
+        var added = 0; var failed = 0
+        toAdd.chunked(batchSize.coerceAtLeast(1)).forEach { chunk ->
+            val inserted = applyInsertBatch(chunk)
+            added += inserted
+            failed += chunk.size - inserted
+        }
+        return ImportResult(added, skipped, failed)
+    }
+
+    /**
+     * 提交一批插入
+     * @return 成功插入的行数
+     */
+    private fun applyInsertBatch(chunk: List<String>): Int {
+        val uri = BlockedNumberContract.BlockedNumbers.CONTENT_URI
+        val operations = ArrayList<ContentProviderOperation>(chunk.size)
+        chunk.forEach { number ->
+            operations.add(
+                ContentProviderOperation.newInsert(uri)
+                    .withValue(BlockedNumberContract.BlockedNumbers.COLUMN_ORIGINAL_NUMBER, number)
+                    .build()
+            )
+        }
+        return try {
+            context.contentResolver
+                .applyBatch(BlockedNumberContract.AUTHORITY, operations)
+                .count { it.uri != null }
+        } catch (e: Exception) {
+            // 批内某一行失败会中断整批（已写入的行不回滚）；
+            // Provider 对相同号码是覆盖写入，逐行重试这一批即可得到准确的失败数
+            Log.w(TAG, "applyBatch failed, retrying ${chunk.size} rows one by one: ${e.message}")
+            chunk.count { number -> insertStandard(number) }
+        }
+    }
+
+    private fun insertStandard(number: String): Boolean {
+        return try {
+            val values = ContentValues().apply {
+                put(BlockedNumberContract.BlockedNumbers.COLUMN_ORIGINAL_NUMBER, number)
+            }
+            context.contentResolver.insert(
+                BlockedNumberContract.BlockedNumbers.CONTENT_URI, values
+            ) != null
+        } catch (e: Exception) {
+            Log.w(TAG, "insert failed ($number): ${e.message}")
+            false
+        }
+    }
+
+    /**
+     * 清空拦截列表：一次带条件的 delete，只产生一次变更通知
+     * 部分厂商 Provider 不支持列表级删除，此时退回按 _id 分批删除
+     */
+    private fun clearStandard() {
+        val uri = BlockedNumberContract.BlockedNumbers.CONTENT_URI
+        try {
+            val deleted = context.contentResolver.delete(
+                uri, "${BlockedNumberContract.BlockedNumbers.COLUMN_ID} IS NOT NULL", null
+            )
+            Log.i(TAG, "clearStandard: deleted $deleted rows")
+            return
+        } catch (e: Exception) {
+            Log.w(TAG, "clearStandard: bulk delete rejected, deleting by id: ${e.message}")
+        }
+
+        try {
+            val ids = mutableListOf<Long>()
+            context.contentResolver.query(
+                uri, arrayOf(BlockedNumberContract.BlockedNumbers.COLUMN_ID), null, null, null
+            )?.use { cursor ->
+                val colId = cursor.getColumnIndexOrThrow(BlockedNumberContract.BlockedNumbers.COLUMN_ID)
+                while (cursor.moveToNext()) ids.add(cursor.getLong(colId))
+            }
+            ids.chunked(batchSize.coerceAtLeast(1)).forEach { chunk ->
+                val operations = ArrayList<ContentProviderOperation>(chunk.size)
+                chunk.forEach { id ->
+                    operations.add(
+                        ContentProviderOperation.newDelete(
+                            android.net.Uri.withAppendedPath(uri, id.toString())
+                        ).build()
+                    )
                 }
-                context.contentResolver.insert(
-                    BlockedNumberContract.BlockedNumbers.CONTENT_URI, values
-                )
-                added++
-            } catch (e: Exception) {
-                Log.w(TAG, "insert failed ($trimmed): ${e.message}")
-                failed++
+                context.contentResolver.applyBatch(BlockedNumberContract.AUTHORITY, operations)
             }
+        } catch (e: Exception) {
+            Log.e(TAG, "clearStandard: ${e.message}")
         }
-        return ImportResult(added, skipped, failed)
     }
 
     // ── Root 模式实现 ───────────────────────────────────────────
@@ -237,22 +328,36 @@ class BlockedNumbersManager(private val context: Context) {
         }
     }
 
-    /** Root + sqlite3 方式写入 */
+    /**
+     * Root + sqlite3 方式写入
+     * 清空（替换模式）和全部插入在同一个事务里完成，失败时表保持原样，全部计为失败。
+     * 因唯一约束被忽略的行计入跳过。
+     */
     private fun importViaRootSqlite(
         dbPath: String, numbers: List<String>, replace: Boolean
     ): ImportResult {
-        if (replace) {
-            RootHelper.clearBlockedNumbersViaSqlite(dbPath)
-        }
-        val existing = if (!replace) {
+        var skipped = 0
+
+        // 合并模式跳过已有号码；同一文件里的重复号码也只写一次
+        val seen = if (!replace) {
             RootHelper.readBlockedNumbersViaSqlite(dbPath).toHashSet()
         } else hashSetOf()
+        val toAdd = ArrayList<String>(numbers.size)
+        numbers.forEach { number ->
+            val trimmed = number.trim()
+            if (trimmed.isEmpty() || !seen.add(trimmed)) skipped++ else toAdd.add(trimmed)
+        }
+        if (toAdd.isEmpty() && !replace) {
+            return ImportResult(0, skipped, 0)
+        }
 
-        val toAdd = numbers.filter { it.isNotBlank() && (replace || !existing.contains(it.trim())) }
-            .map { it.trim() }
-        val skipped = numbers.size - toAdd.size
-        val added = RootHelper.insertBlockedNumbersViaSqlite(dbPath, toAdd)
-        return ImportResult(added, skipped, toAdd.size - added)
+        return try {
+            val added = RootHelper.insertBlockedNumbersViaSqlite(dbPath, toAdd, replace, context.cacheDir)
+            ImportResult(added, skipped + (toAdd.size - added), 0)
+        } catch (e: Exception) {
+            Log.e(TAG, "importViaRootSqlite: ${e.message}")
+            ImportResult(0, skipped, toAdd.size)
+        }
     }
 
     /** Root + DB文件复制 方式写入（无 sqlite3 时回退） */
@@ -320,6 +320,7 @@ class MainActivity : AppCompatActivity() {
                 withContext(Dispatchers.Main) {
                     setLoadingState(false)
                     appendLog(getString(R.string.import_success, result.added, result.skipped, result.failed))
+                    appendLog(getString(R.string.import_rate, result.added, result.elapsedMs, result.rowsPerSecond))
                     detectAndUpdateMode(forceRootCheck = true)  // 刷新计数，因为发生了实质性写入
                 }
             } catch (e: Exception) {
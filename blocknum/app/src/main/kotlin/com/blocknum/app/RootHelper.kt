@@ -1,12 +1,11 @@
 package com.blocknum.app
 
 import android.util.Log
-import java.io.DataOutputStream
 import java.io.File
 
 /**
  * Root 权限辅助类
- * 通过 su 执行 shell 命令，读写系统拦截号码数据库。
+ * 通过常驻的 su 会话（[RootShell]）执行 shell 命令，读写系统拦截号码数据库。
  *
  * 兼容性说明：
  *   - Android 8-16 (API 26-36): su 二进制路径与行为基本一致
@@ -17,6 +16,26 @@ object RootHelper {
 
     private const val TAG = "RootHelper"
     private const val TIMEOUT_MS = 8000L
+    /** 批量导入脚本的超时：整批在一个事务里执行，远长于单条命令 */
+    private const val BULK_TIMEOUT_MS = 120_000L
+
+    /**
+     * 每条 INSERT 语句的 VALUES 行数
+     * 旧版 sqlite3（3.8.8 之前）把多行 VALUES 当作复合 SELECT，上限 500 行
+     */
+    private const val SQLITE_ROWS_PER_INSERT = 200
+
+    /**
+     * 数据库被 Provider 占用时 sqlite3 的等待时间（.timeout，毫秒）
+     * 不设置时 BEGIN IMMEDIATE 遇到锁立即以 SQLITE_BUSY 失败
+     */
+    private const val SQLITE_BUSY_TIMEOUT_MS = 5000
+
+    private const val COUNT_BEFORE = "count_before="
+    private const val COUNT_AFTER = "count_after="
+
+    /** 所有命令共用一个 su 进程，避免每条命令都重新握手和弹授权检查 */
+    private val shell = RootShell()
     
     // 全局日志回调，用于将底层错误输出到 UI
     var logger: ((String) -> Unit)? = null
@@ -130,34 +149,59 @@ object RootHelper {
     }
 
     /**
-     * 通过 sqlite3 插入号码（需 sqlite3 可用）
-     * @return 成功插入的数量
+     * 通过 sqlite3 批量插入号码（需 sqlite3 可用）
+     *
+     * 整批号码写成一个 SQL 脚本暂存到 [stagingDir]，由一个 sqlite3 进程在单个事务里执行：
+     * 只有一次提交（一次 fsync），而不是每个号码一个 su + sqlite3 进程和一个隐式事务。
+     * 脚本开启 .bail，任何一条语句失败都会使 sqlite3 退出并回滚整个事务，
+     * 因此替换模式下导入失败不会留下一个被清空的表。
+     * 开始事务前用 .timeout 等待 Provider 释放数据库锁，而不是遇到锁就直接失败。
+     * 插入数为事务内前后两次 count(*) 之差，被 OR IGNORE 忽略的行不计入。
+     *
+     * @param replace true 时在同一事务内先清空表
+     * @return 实际新增的行数
+     * @throws RuntimeException 脚本执行失败（事务已回滚，没有任何改动）
      */
-    fun insertBlockedNumbersViaSqlite(dbPath: String, numbers: List<String>): Int {
-        var count = 0
+    fun insertBlockedNumbersViaSqlite(
+        dbPath: String, numbers: List<String>, replace: Boolean, stagingDir: File
+    ): Int {
         val tableName = getTableName(dbPath)
-        numbers.forEach { number ->
-            val sanitized = number.replace("'", "''") // SQL 转义
-            try {
-                execAsRoot(
-                    "sqlite3 \"$dbPath\" " +
-                    "\"INSERT OR IGNORE INTO $tableName(original_number,e164_number) " +
-                    "VALUES('$sanitized','$sanitized');\""
-                )
-                count++
-            } catch (e: Exception) {
-                Log.w(TAG, "Insert failed for $number: ${e.message}")
+        val script = File(stagingDir, "blocked_numbers_import.sql")
+        try {
+            script.bufferedWriter().use { out ->
+                out.write(".bail on\n")
+                out.write(".timeout $SQLITE_BUSY_TIMEOUT_MS\n")
+                out.write("BEGIN IMMEDIATE;\n")
+                if (replace) out.write("DELETE FROM $tableName;\n")
+                out.write("SELECT '$COUNT_BEFORE' || count(*) FROM $tableName;\n")
+                numbers.chunked(SQLITE_ROWS_PER_INSERT).forEach { chunk ->
+                    out.write("INSERT OR IGNORE INTO $tableName(original_number,e164_number) VALUES")
+                    chunk.forEachIndexed { i, number ->
+                        val sanitized = number.replace("'", "''") // SQL 转义
+                        out.write(if (i == 0) "\n" else ",\n")
+                        out.write("('$sanitized','$sanitized')")
+                    }
+                    out.write(";\n")
+                }
+                out.write("SELECT '$COUNT_AFTER' || count(*) FROM $tableName;\n")
+                out.write("COMMIT;\n")
+            }
+            val output = execAsRoot(
+                "sqlite3 \"$dbPath\" < \"${script.absolutePath}\"",
+                BULK_TIMEOUT_MS
+            )
+            val before = parseCount(output, COUNT_BEFORE)
+            val after = parseCount(output, COUNT_AFTER)
+            if (before == null || after == null) {
+                throw RuntimeException("Unexpected sqlite3 output: ${output.take(200)}")
             }
+            // 替换模式下 before 是清空后的行数（0）
+            val added = after - before
+            logger?.invoke("sqlite3 bulk insert: $added of ${numbers.size} rows added")
+            return added
+        } finally {
+            script.delete()
         }
-        return count
-    }
-
-    /**
-     * 通过 sqlite3 删除所有拦截号码（清空表）
-     */
-    fun clearBlockedNumbersViaSqlite(dbPath: String) {
-        val tableName = getTableName(dbPath)
-        execAsRoot("sqlite3 \"$dbPath\" 'DELETE FROM $tableName;'")
     }
 
     /**
@@ -207,24 +251,13 @@ object RootHelper {
 
     /**
      * 以 root 身份执行命令，返回 stdout 内容
+     * 命令在常驻会话中串行执行；会话死掉或超时后，下一条命令会自动重启 su
      */
-    fun execAsRoot(command: String): String {
-        val process = Runtime.getRuntime().exec("su")
-        val os = DataOutputStream(process.outputStream)
-        os.writeBytes("$command\n")
-        os.writeBytes("exit\n")
-        os.flush()
-
-        // 设置超时
-        val finished = process.waitForWithTimeout(TIMEOUT_MS)
-        if (!finished) {
-            process.destroy()
-            throw RuntimeException("Root command timed out: $command")
-        }
-
-        val stdout = process.inputStream.bufferedReader().readText()
-        val stderr = process.errorStream.bufferedReader().readText()
-        val exitCode = process.exitValue()
+    fun execAsRoot(command: String, timeoutMs: Long = TIMEOUT_MS): String {
+        val result = shell.exec(command, timeoutMs)
+        val stdout = result.stdout
+        val stderr = result.stderr
+        val exitCode = result.exitCode
 
         Log.d(TAG, "execAsRoot: exit=$exitCode  stdout='${stdout.take(200)}'  stderr='${stderr.take(200)}'")
 
@@ -244,17 +277,11 @@ object RootHelper {
         return suPaths.any { File(it).exists() }
     }
 
-    /** Process.waitFor() 的超时版本，兼容 API 26 */
-    private fun Process.waitForWithTimeout(timeoutMs: Long): Boolean {
-        val start = System.currentTimeMillis()
-        while (System.currentTimeMillis() - start < timeoutMs) {
-            try {
-                exitValue() // 不抛异常说明进程已结束
-                return true
-            } catch (e: IllegalThreadStateException) {
-                Thread.sleep(50)
-            }
-        }
-        return false
-    }
+    /** 从 sqlite3 输出中取出 "前缀+数字" 行上的数字 */
+    private fun parseCount(output: String, prefix: String): Int? =
+        output.lineSequence()
+            .map { it.trim() }
+            .firstOrNull { it.startsWith(prefix) }
+            ?.substring(prefix.length)
+            ?.toIntOrNull()
 }
@@ -0,0 +1,153 @@
+package com.blocknum.app
+
+import android.util.Log
+import java.io.BufferedReader
+import java.io.IOException
+import java.io.InputStream
+import java.io.Writer
+import java.util.UUID
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+/**
+ * 常驻 root shell 会话
+ *
+ * 整个进程只启动一次 su：命令串行写入同一个 shell 的 stdin，
+ * 每条命令后追加一个随机标记行（stdout 上附带退出码），stdout / stderr 各由一个读线程
+ * 按行放入队列，调用方读到两个标记即得到这条命令的完整输出，无需轮询进程状态。
+ *
+ * 会话在以下情况会被销毁，下一条命令自动重新启动 su：
+ *   - 命令超时（输出可能还没写完，无法再与后续命令区分）
+ *   - shell 自行退出（命令中执行了 exit、语法错误、su 被拒绝等）
+ */
+class RootShell(private val shellCommand: String = "su") {
+
+    /** 一条命令的执行结果 */
+    data class Result(val exitCode: Int, val stdout: String, val stderr: String)
+
+    private class Session(val process: Process, val marker: String) {
+        val stdin: Writer = process.outputStream.bufferedWriter(Charsets.UTF_8)
+        val stdout = LinkedBlockingQueue<String>()
+        val stderr = LinkedBlockingQueue<String>()
+
+        init {
+            startReader(process.inputStream, stdout, "RootShell-stdout")
+            startReader(process.errorStream, stderr, "RootShell-stderr")
+        }
+
+        fun destroy() {
+            try { stdin.close() } catch (_: IOException) {}
+            process.destroy()
+        }
+    }
+
+    private val lock = Any()
+    private var session: Session? = null
+
+    /**
+     * 执行一条命令，同一时间只有一条命令在执行
+     * @throws RuntimeException 超时，或 shell 在命令执行期间退出
+     */
+    fun exec(command: String, timeoutMs: Long): Result = synchronized(lock) {
+        val current = obtainSession()
+        try {
+            // 命令的 stdin 重定向到 /dev/null，避免它吃掉后面的标记行
+            current.stdin.write("{\n$command\n} </dev/null\n")
+            current.stdin.write("__rc=\$?\n")
+            // 先输出空行：命令的最后一行没有换行时，标记仍然独占一行
+            current.stdin.write("echo; echo \"${current.marker} \$__rc\"\n")
+            current.stdin.write("echo >&2; echo \"${current.marker}\" >&2\n")
+            current.stdin.flush()
+        } catch (e: IOException) {
+            discard(current)
+            throw RuntimeException("Root shell is not accepting commands: ${e.message}", e)
+        }
+
+        val deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs)
+        val stdout = mutableListOf<String>()
+        val stderr = mutableListOf<String>()
+        val exitCode = collect(current, current.stdout, stdout, deadline, command)
+        collect(current, current.stderr, stderr, deadline, command)
+        Result(exitCode ?: -1, stdout.joinToString("\n"), stderr.joinToString("\n"))
+    }
+
+    /**
+     * 关闭会话（下一次 exec 会重新启动）
+     */
+    fun close() {
+        synchronized(lock) {
+            session?.let { discard(it) }
+        }
+    }
+
+    private fun obtainSession(): Session {
+        session?.let { if (it.process.isAlive) return it else discard(it) }
+        val started = Session(
+            Runtime.getRuntime().exec(shellCommand),
+            "__BLOCKNUM_${UUID.randomUUID().toString().replace("-", "")}__"
+        )
+        session = started
+        Log.d(TAG, "Root shell started")
+        return started
+    }
+
+    private fun discard(target: Session) {
+        target.destroy()
+        if (session === target) session = null
+    }
+
+    /**
+     * 读取一个流上直到标记行为止的输出（不含标记前补的空行）
+     * @return stdout 标记行上的退出码；stderr 返回 null
+     */
+    private fun collect(
+        current: Session,
+        queue: LinkedBlockingQueue<String>,
+        out: MutableList<String>,
+        deadline: Long,
+        command: String
+    ): Int? {
+        while (true) {
+            val remaining = deadline - System.nanoTime()
+            val line = if (remaining > 0) queue.poll(remaining, TimeUnit.NANOSECONDS) else null
+            when {
+                line == null -> {
+                    discard(current)
+                    throw RuntimeException("Root command timed out: $command")
+                }
+                line === EOF -> {
+                    discard(current)
+                    throw RuntimeException("Root shell exited while running: $command")
+                }
+                line.startsWith(current.marker) -> {
+                    if (out.lastOrNull()?.isEmpty() == true) out.removeAt(out.size - 1)
+                    return line.substring(current.marker.length).trim().toIntOrNull()
+                }
+                else -> out.add(line)
+            }
+        }
+    }
+
+    companion object {
+        private const val TAG = "RootShell"
+
+        /** 读线程遇到流结束时放入的标记（按引用比较） */
+        private val EOF = String(charArrayOf('\u0000'))
+
+        private fun startReader(stream: InputStream, queue: LinkedBlockingQueue<String>, name: String) {
+            Thread({
+                val reader: BufferedReader = stream.bufferedReader(Charsets.UTF_8)
+                try {
+                    while (true) {
+                        val line = reader.readLine() ?: break
+                        queue.put(line)
+                    }
+                } catch (_: IOException) {
+                    // 会话被销毁时流会被关闭
+                } finally {
+                    queue.put(EOF)
+                }
+            }, name).apply { isDaemon = true }.start()
+        }
+    }
+}
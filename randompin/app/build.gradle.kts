@@ -33,6 +33,9 @@ android {
             )
         }
     }
+    buildFeatures {
+        buildConfig = true
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_1_8
         targetCompatibility = JavaVersion.VERSION_1_8
@@ -40,5 +43,6 @@ android {
 }
 
 dependencies {
+    implementation(project(":core"))
     compileOnly("de.robv.android.xposed:api:82")
 }
@@ -2,16 +2,9 @@ package com.randompin.xposed;
 
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewTreeObserver;
-import android.widget.TextView;
-import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import de.robv.android.xposed.XC_MethodHook;
-import de.robv.android.xposed.XposedBridge;
 import de.robv.android.xposed.XposedHelpers;
 
 /**
@@ -21,8 +14,6 @@ import de.robv.android.xposed.XposedHelpers;
 public class Android15Hooks {
     
     private static final String TAG = "RandomPIN-A16";
-    private static final int TAG_RANDOMIZED = 0x52414E44; // "RAND" 标记
-    private static final int TAG_CONTAINER_TRACKED = 0x54524143; // "TRAC" 标记 - 追踪中的容器
     
     public static void hook(ClassLoader classLoader) {
         hookKeyguardBouncer(classLoader);
@@ -30,8 +21,87 @@ public class Android15Hooks {
         hookNumPadAnimationController(classLoader);
     }
 
+    /**
+     * 监听弹出层显示/隐藏，让键盘每次显示都换一个新排列
+     * 安卓16不再通过外部 Bouncer 触发首次洗牌（由 NumPadKey 的生成触发），这里只负责重新洗牌
+     */
     public static void hookKeyguardBouncer(ClassLoader classLoader) {
-        // 安卓16不再通过外部 Bouncer 触发，而是直接监听底部 NumPadKey 的生成
+        // PIN 输入视图的 onResume / onPause：安卓12+ 在控制器上，安卓10-11 在视图上
+        String[] inputClasses = {
+            "com.android.keyguard.KeyguardPinBasedInputViewController",
+            "com.android.keyguard.KeyguardAbsKeyInputViewController",
+            "com.android.keyguard.KeyguardPinBasedInputView"
+        };
+        for (String className : inputClasses) {
+            Class<?> inputClass = HookManifest.findClass(className, classLoader);
+            if (inputClass == null) {
+                continue;
+            }
+            try {
+                String simpleName = inputClass.getSimpleName();
+                HookManifest.hookAllMethods(inputClass, "onResume", new ProfiledHook(simpleName + ".onResume", true) {
+                    @Override
+                    protected boolean after(MethodHookParam param) throws Throwable {
+                        View view = securityViewOf(param.thisObject);
+                        if (view == null) return false;
+                        ShuffleScheduler.onBouncerShown(view);
+                        return true;
+                    }
+                });
+                HookManifest.hookAllMethods(inputClass, "onPause", new ProfiledHook(simpleName + ".onPause", true) {
+                    @Override
+                    protected boolean after(MethodHookParam param) throws Throwable {
+                        View view = securityViewOf(param.thisObject);
+                        if (view == null) return false;
+                        ShuffleScheduler.onBouncerHidden(view);
+                        return true;
+                    }
+                });
+                ModuleLog.i(TAG, "Hooked {} onResume/onPause", className);
+            } catch (Throwable t) {
+                ModuleLog.w(TAG, "{} hook failed: {}", className, t.getMessage());
+            }
+        }
+
+        // 监听键盘区域被销毁或隐藏，重置洗牌状态以便下次亮屏再次洗牌
+        try {
+            Class<?> bouncerClass = HookManifest.findClass(
+                "com.android.keyguard.KeyguardBouncer",
+                classLoader
+            );
+            if (bouncerClass == null) {
+                return;
+            }
+            HookManifest.findAndHookMethod(
+                bouncerClass,
+                "hide",
+                boolean.class,
+                new ProfiledHook("KeyguardBouncer.hide", false) {
+                    @Override
+                    protected boolean after(MethodHookParam param) throws Throwable {
+                        ShuffleScheduler.invalidateAll();
+                        return true;
+                    }
+                }
+            );
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "KeyguardBouncer.hide hook failed (may not exist): {}", t.getMessage());
+        }
+    }
+
+    /**
+     * 取出输入视图：视图本身，或 ViewController 的 mView
+     */
+    private static View securityViewOf(Object obj) {
+        if (obj instanceof View) {
+            return (View) obj;
+        }
+        try {
+            Object view = XposedHelpers.getObjectField(obj, "mView");
+            return view instanceof View ? (View) view : null;
+        } catch (Throwable t) {
+            return null;
+        }
     }
     
     public static void hookLockIconViewController(ClassLoader classLoader) {
@@ -44,400 +114,84 @@ public class Android15Hooks {
     public static void hookNumPadAnimationController(ClassLoader classLoader) {
         try {
             // 挂按键本身的形成时机，适用于锁屏密码、SIM 卡密码和 PUK 解锁区域的共用底层按键
-            Class<?> numPadKeyClass = XposedHelpers.findClass(
+            Class<?> numPadKeyClass = HookManifest.findClass(
                 "com.android.keyguard.NumPadKey",
                 classLoader
             );
+            // 厂商改名时使用 dex 扫描找到的类
+            KeyguardSymbols symbols = KeyguardSymbols.current;
+            if (numPadKeyClass == null && symbols != null && symbols.numPadKeyClass != null) {
+                numPadKeyClass = HookManifest.findClass(symbols.numPadKeyClass, classLoader);
+            }
+            if (numPadKeyClass == null) {
+                ModuleLog.w(TAG, "NumPadKey not found");
+                return;
+            }
             
             // 安卓15后期和16中，NumPadKey 不再显式重写 onFinishInflate，直接 Exact Hook 会报错
-            // 改为 Hook 构造函数，并在附着到窗口时执行逻辑
-            XposedBridge.hookAllConstructors(
+            // 改为 Hook 构造函数，并在附着到窗口后由调度器统一处理
+            HookManifest.hookAllConstructors(
                 numPadKeyClass,
-                new XC_MethodHook() {
+                new ProfiledHook("NumPadKey.<init>", false) {
                     @Override
-                    protected void afterHookedMethod(MethodHookParam param) throws Throwable {
-                        final View keyObj = (View) param.thisObject;
-                        
-                        keyObj.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
-                            @Override
-                            public void onViewAttachedToWindow(View v) {
-                                // 延迟获取父容器，确保父容器和同级元素已经完全构建
-                                keyObj.post(new Runnable() {
-                                    @Override
-                                    public void run() {
-                                        ViewGroup parent = (ViewGroup) keyObj.getParent();
-                                        if (parent == null) {
-                                            return;
-                                        }
-                                        
-                                        // 找到PIN键盘的根容器（通常包含10个数字键）
-                                        ViewGroup pinContainer = findPINContainer(parent);
-                                        if (pinContainer == null) {
-                                            return;
-                                        }
-                                        
-                                        // 检查是否已经洗牌过
-                                        if (pinContainer.getTag(TAG_RANDOMIZED) != null) {
-                                            return;
-                                        }
-                                        
-                                        // 避免重复添加监听器
-                                        if (pinContainer.getTag(TAG_CONTAINER_TRACKED) != null) {
-                                            return;
-                                        }
-                                        
-                                        // 标记为追踪中
-                                        pinContainer.setTag(TAG_CONTAINER_TRACKED, Boolean.TRUE);
-                                        
-                                        // 使用 ViewTreeObserver 监听全局布局完成
-                                        final ViewGroup containerRef = pinContainer;
-                                        ViewTreeObserver.OnGlobalLayoutListener layoutListener = new ViewTreeObserver.OnGlobalLayoutListener() {
-                                            private int lastChildCount = 0;
-                                            private int stableCount = 0;
-                                            
-                                            @Override
-                                            public void onGlobalLayout() {
-                                                int childCount = countDigitButtons(containerRef);
-                                                
-                                                // 等待子View数量稳定（连续两次检测到相同数量且>=10）
-                                                if (childCount >= 10) {
-                                                    if (childCount == lastChildCount) {
-                                                        stableCount++;
-                                                        if (stableCount >= 2) {
-                                                            // 布局稳定，执行洗牌
-                                                            if (containerRef.getTag(TAG_RANDOMIZED) == null) {
-                                                                doHardRandomize(containerRef);
-                                                            }
-                                                            // 移除监听器
-                                                            containerRef.getViewTreeObserver().removeOnGlobalLayoutListener(this);
-                                                            containerRef.setTag(TAG_CONTAINER_TRACKED, null);
-                                                        }
-                                                    } else {
-                                                        stableCount = 0;
-                                                    }
-                                                    lastChildCount = childCount;
-                                                }
-                                            }
-                                        };
-                                        
-                                        containerRef.getViewTreeObserver().addOnGlobalLayoutListener(layoutListener);
-                                        
-                                        // 同时也执行一次立即检查（某些设备可能不需要等待）
-                                        containerRef.postDelayed(new Runnable() {
-                                            @Override
-                                            public void run() {
-                                                if (containerRef.getTag(TAG_RANDOMIZED) == null) {
-                                                    int digitCount = countDigitButtons(containerRef);
-                                                    if (digitCount >= 10) {
-                                                        doHardRandomize(containerRef);
-                                                        containerRef.setTag(TAG_CONTAINER_TRACKED, null);
-                                                    }
-                                                }
-                                            }
-                                        }, 150);
-                                    }
-                                });
-                            }
-
-                            @Override
-                            public void onViewDetachedFromWindow(View v) {
-                            }
-                        });
+                    protected boolean after(MethodHookParam param) throws Throwable {
+                        // 只登记按键，同一容器的所有按键由调度器合并成一次洗牌
+                        ShuffleScheduler.onKeyCreated((View) param.thisObject);
+                        return true;
                     }
                 }
             );
 
-            // 监听键盘区域被销毁或隐藏，重置洗牌状态以便下次亮屏再次洗牌
-            try {
-                Class<?> bouncerClass = XposedHelpers.findClass(
-                    "com.android.keyguard.KeyguardBouncer",
-                    classLoader
-                );
-                XposedHelpers.findAndHookMethod(
-                    bouncerClass,
-                    "hide",
-                    boolean.class,
-                    new XC_MethodHook() {
-                        @Override
-                        protected void afterHookedMethod(MethodHookParam param) throws Throwable {
-                            XposedBridge.log("[" + TAG + "] Bouncer hidden.");
-                        }
-                    }
-                );
-            } catch (Throwable t) {
-                XposedBridge.log("[" + TAG + "] KeyguardBouncer.hide hook failed (may not exist): " + t.getMessage());
-            }
-            
             // Hook KeyguardSecurityContainer 作为备选方案
             try {
-                Class<?> securityContainerClass = XposedHelpers.findClass(
+                Class<?> securityContainerClass = HookManifest.findClass(
                     "com.android.keyguard.KeyguardSecurityContainer",
                     classLoader
                 );
-                XposedHelpers.findAndHookMethod(
-                    securityContainerClass,
-                    "onFinishInflate",
-                    new XC_MethodHook() {
-                        @Override
-                        protected void afterHookedMethod(MethodHookParam param) throws Throwable {
-                            ViewGroup container = (ViewGroup) param.thisObject;
-                            XposedBridge.log("[" + TAG + "] KeyguardSecurityContainer inflated");
+                if (securityContainerClass != null) {
+                    HookManifest.findAndHookMethod(
+                        securityContainerClass,
+                        "onFinishInflate",
+                        // 图案/密码锁屏上找不到数字键盘是正常情况，用户随时可能改成 PIN，不能自动卸载
+                        new ProfiledHook("KeyguardSecurityContainer.onFinishInflate", false) {
+                            @Override
+                            protected boolean after(MethodHookParam param) throws Throwable {
+                                ViewGroup container = (ViewGroup) param.thisObject;
+                                ModuleLog.d(TAG, "KeyguardSecurityContainer inflated");
+                            
+                                final long inflateNanos = System.nanoTime();
                             
-                            // 延迟搜索并处理PIN容器
-                            container.postDelayed(new Runnable() {
-                                @Override
-                                public void run() {
-                                    processPINContainers(container);
+                                if (ModuleConfig.LEGACY_READINESS) {
+                                    // 旧方案：延迟搜索并处理PIN容器（保留用于耗时对比）
+                                    container.postDelayed(new Runnable() {
+                                        @Override
+                                        public void run() {
+                                            for (Keypad keypad : KeypadRegistry.locate(container)) {
+                                                ShuffleScheduler.shuffleNow(keypad, inflateNanos);
+                                            }
+                                        }
+                                    }, 500);
+                                    return true;
                                 }
-                            }, 500);
+                            
+                                // 子视图此时已经 inflate 完成，立即定位并在首帧绘制前洗牌
+                                List<Keypad> keypads = KeypadRegistry.locate(container);
+                                for (Keypad keypad : keypads) {
+                                    ShuffleScheduler.schedule(keypad, inflateNanos);
+                                }
+                                return !keypads.isEmpty();
+                            }
                         }
-                    }
-                );
-            } catch (Throwable t) {
-                XposedBridge.log("[" + TAG + "] KeyguardSecurityContainer hook failed: " + t.getMessage());
-            }
-            
-            XposedBridge.log("[" + TAG + "] Hooked NumPadKey successfully for Android 16.");
-            
-        } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] NumPadKey hook failed: " + t.getMessage());
-        }
-    }
-    
-    /**
-     * 递归查找包含PIN键盘的容器
-     */
-    private static ViewGroup findPINContainer(View view) {
-        if (view == null) return null;
-        
-        if (view instanceof ViewGroup) {
-            ViewGroup group = (ViewGroup) view;
-            int digitCount = countDigitButtons(group);
-            
-            // 如果直接包含足够的数字按钮，返回此容器
-            if (digitCount >= 10) {
-                return group;
-            }
-            
-            // 递归查找子View
-            for (int i = 0; i < group.getChildCount(); i++) {
-                View child = group.getChildAt(i);
-                if (child instanceof ViewGroup) {
-                    ViewGroup result = findPINContainer(child);
-                    if (result != null) {
-                        return result;
-                    }
-                }
-            }
-        }
-        
-        return null;
-    }
-    
-    /**
-     * 递归处理所有PIN容器
-     */
-    private static void processPINContainers(ViewGroup root) {
-        if (root == null) return;
-        
-        // 检查当前容器
-        if (root.getTag(TAG_RANDOMIZED) == null) {
-            int digitCount = countDigitButtons(root);
-            if (digitCount >= 10) {
-                doHardRandomize(root);
-            }
-        }
-        
-        // 递归处理子容器
-        for (int i = 0; i < root.getChildCount(); i++) {
-            View child = root.getChildAt(i);
-            if (child instanceof ViewGroup) {
-                processPINContainers((ViewGroup) child);
-            }
-        }
-    }
-    
-    /**
-     * 暴力洗牌算法：剥离出来直接重构父容器
-     */
-    private static void doHardRandomize(ViewGroup container) {
-        if (container == null) return;
-        
-        try {
-            List<View> digitButtons = new ArrayList<>();
-            List<View> otherButtons = new ArrayList<>();
-            
-            // 第一步：分类
-            List<Integer> originalIds = new ArrayList<>();
-            List<ViewGroup.LayoutParams> originalLayoutParams = new ArrayList<>();
-            
-            for (int i = 0; i < container.getChildCount(); i++) {
-                View child = container.getChildAt(i);
-                Integer digit = getDigitValue(child);
-                if (digit != null && digit >= 0 && digit <= 9) {
-                    digitButtons.add(child);
-                    // 保存原位按键的 ID 和 布局约束参数（解决 ConstraintLayout 不受 addView 顺序影响的 Bug）
-                    originalIds.add(child.getId());
-                    originalLayoutParams.add(child.getLayoutParams());
-                } else {
-                    otherButtons.add(child);
-                }
-            }
-            
-            // 如果数字按键不足10个，记录并退出
-            if (digitButtons.size() < 10) {
-                XposedBridge.log("[" + TAG + "] Only found " + digitButtons.size() + " digit buttons, skipping shuffle");
-                return;
-            }
-            
-            // 第二步：洗牌 View 引用
-            Collections.shuffle(digitButtons);
-            
-            // 第三步：把原本的 ID 和 LayoutParams 覆盖回洗牌后的 View 上
-            // 这能够欺骗 ConstraintLayout，让它把洗过的 View 强行约束在原本方块的位置
-            for (int i = 0; i < digitButtons.size(); i++) {
-                View shuffledBtn = digitButtons.get(i);
-                shuffledBtn.setId(originalIds.get(i));
-                shuffledBtn.setLayoutParams(originalLayoutParams.get(i));
-            }
-            
-            // 第四步：重组试图层级 - 保持原有索引位置的含义，但内部 View 已经被掉包
-            List<View> originalChildren = new ArrayList<>();
-            for (int i = 0; i < container.getChildCount(); i++) {
-                originalChildren.add(container.getChildAt(i));
-            }
-            
-            container.removeAllViews();
-            
-            int digitIndex = 0;
-            for (View original : originalChildren) {
-                Integer digit = getDigitValue(original);
-                if (digit != null && digit >= 0 && digit <= 9 && digitIndex < digitButtons.size()) {
-                    container.addView(digitButtons.get(digitIndex));
-                    digitIndex++;
-                } else {
-                    container.addView(original);
+                    );
                 }
+            } catch (Throwable t) {
+                ModuleLog.w(TAG, "KeyguardSecurityContainer hook failed: {}", t.getMessage());
             }
             
-            container.setTag(TAG_RANDOMIZED, Boolean.TRUE);
-            container.setTag(TAG_CONTAINER_TRACKED, null);
-            XposedBridge.log("[" + TAG + "] Hard Randomized " + digitButtons.size() + " PIN Buttons successfully!");
+            ModuleLog.i(TAG, "Hooked NumPadKey successfully for Android 16.");
             
         } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] Error in doHardRandomize: " + t.getMessage());
-            t.printStackTrace();
+            ModuleLog.w(TAG, "NumPadKey hook failed: {}", t.getMessage());
         }
     }
-    
-    /**
-     * 计算容器中的数字按钮数量
-     */
-    private static int countDigitButtons(ViewGroup container) {
-        int count = 0;
-        for (int i = 0; i < container.getChildCount(); i++) {
-            View child = container.getChildAt(i);
-            Integer digit = getDigitValue(child);
-            if (digit != null && digit >= 0 && digit <= 9) {
-                count++;
-            }
-        }
-        return count;
-    }
-    
-    /**
-     * 获取View的数字值（增强版，兼容多种情况）
-     */
-    private static Integer getDigitValue(View view) {
-        if (view == null) return null;
-        
-        // 方法1: 尝试多种可能的字段名
-        String[] possibleFieldNames = {"mDigit", "digit", "mNumber", "number", "mDigitValue", "digitValue"};
-        for (String fieldName : possibleFieldNames) {
-            try {
-                Object digitObj = XposedHelpers.getObjectField(view, fieldName);
-                if (digitObj instanceof Integer) {
-                    return (Integer) digitObj;
-                }
-            } catch (Throwable ignored) {}
-        }
-        
-        // 方法2: 通过反射遍历所有字段查找int类型的digit相关字段
-        try {
-            Field[] fields = view.getClass().getDeclaredFields();
-            for (Field field : fields) {
-                String name = field.getName().toLowerCase();
-                if ((name.contains("digit") || name.contains("number")) && field.getType() == int.class) {
-                    field.setAccessible(true);
-                    int value = field.getInt(view);
-                    if (value >= 0 && value <= 9) {
-                        return value;
-                    }
-                }
-            }
-        } catch (Throwable ignored) {}
-        
-        // 方法3: 检查类名是否为NumPadKey
-        String className = view.getClass().getName();
-        if (className.contains("NumPadKey")) {
-            // 这是NumPadKey，但找不到digit字段，尝试从TextView获取
-            try {
-                if (view instanceof TextView) {
-                    String text = ((TextView) view).getText().toString().trim();
-                    if (text.matches("^[0-9]$")) {
-                        return Integer.parseInt(text);
-                    }
-                }
-                
-                // NumPadKey通常包含一个TextView子View
-                if (view instanceof ViewGroup) {
-                    ViewGroup vg = (ViewGroup) view;
-                    for (int i = 0; i < vg.getChildCount(); i++) {
-                        View child = vg.getChildAt(i);
-                        if (child instanceof TextView) {
-                            String text = ((TextView) child).getText().toString().trim();
-                            if (text.matches("^[0-9]$")) {
-                                return Integer.parseInt(text);
-                            }
-                        }
-                    }
-                }
-            } catch (Throwable ignored) {}
-            
-            // 即使找不到具体digit值，这也应该是一个数字键
-            // 返回一个标记值让调用者知道这是数字键
-            return 0; // 假设至少是个数字键
-        }
-        
-        // 方法4: 检查TextView内容
-        if (view instanceof TextView) {
-            try {
-                String text = ((TextView) view).getText().toString().trim();
-                if (text.matches("^[0-9]$")) {
-                    return Integer.parseInt(text);
-                }
-            } catch (Throwable ignored) {}
-        }
-        
-        // 方法5: 检查content description
-        try {
-            CharSequence contentDesc = view.getContentDescription();
-            if (contentDesc != null) {
-                String desc = contentDesc.toString().trim();
-                if (desc.matches("^[0-9]$")) {
-                    return Integer.parseInt(desc);
-                }
-            }
-        } catch (Throwable ignored) {}
-        
-        return null;
-    }
-    
-    /**
-     * 精确判断是否为数字键（兼容方法）
-     */
-    private static boolean isDigit(View view) {
-        Integer digit = getDigitValue(view);
-        return digit != null;
-    }
 }
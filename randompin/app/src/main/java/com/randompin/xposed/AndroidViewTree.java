@@ -0,0 +1,87 @@
+package com.randompin.xposed;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.randompin.core.ViewTree;
+
+/**
+ * core 模块视图抽象层的 android.view 实现
+ */
+final class AndroidViewTree implements ViewTree<View> {
+
+    static final AndroidViewTree INSTANCE = new AndroidViewTree();
+
+    private AndroidViewTree() {}
+
+    @Override
+    public boolean isGroup(View node) {
+        return node instanceof ViewGroup;
+    }
+
+    @Override
+    public int childCount(View group) {
+        return group instanceof ViewGroup ? ((ViewGroup) group).getChildCount() : 0;
+    }
+
+    @Override
+    public View childAt(View group, int index) {
+        return ((ViewGroup) group).getChildAt(index);
+    }
+
+    @Override
+    public boolean isText(View node) {
+        return node instanceof TextView;
+    }
+
+    @Override
+    public CharSequence text(View node) {
+        return node instanceof TextView ? ((TextView) node).getText() : null;
+    }
+
+    @Override
+    public void setText(View node, CharSequence text) {
+        ((TextView) node).setText(text);
+    }
+
+    @Override
+    public CharSequence contentDescription(View node) {
+        return node.getContentDescription();
+    }
+
+    @Override
+    public void setContentDescription(View node, CharSequence description) {
+        node.setContentDescription(description);
+    }
+
+    @Override
+    public int id(View node) {
+        return node.getId();
+    }
+
+    @Override
+    public void setId(View node, int id) {
+        node.setId(id);
+    }
+
+    @Override
+    public Object layoutParams(View node) {
+        return node.getLayoutParams();
+    }
+
+    @Override
+    public void setLayoutParams(View node, Object params) {
+        node.setLayoutParams((ViewGroup.LayoutParams) params);
+    }
+
+    @Override
+    public void removeAllChildren(View group) {
+        ((ViewGroup) group).removeAllViews();
+    }
+
+    @Override
+    public void addChild(View group, View child) {
+        ((ViewGroup) group).addView(child);
+    }
+}
@@ -0,0 +1,225 @@
+package com.randompin.xposed;
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 跨进程性能数据快照
+ * 被 Hook 的进程（system_server、SystemUI、桌面）各注册一个广播接收器，
+ * 设置界面广播 ACTION_REQUEST 后，每个进程把本进程的固定大小直方图打包成一个 Bundle，
+ * 通过 ACTION_REPLY 只发回模块自身的包。平时没有任何开销，只有打开设置界面时才会序列化。
+ * 请求受签名级权限 PERMISSION 保护，只有模块自身能触发快照；
+ * 回复附带发送进程自己创建的 PendingIntent，设置界面按系统记录的创建者包名确认回复来自被 Hook 的进程。
+ */
+final class Diagnostics {
+
+    private static final String TAG = "RandomPIN-Diag";
+
+    static final String MODULE_PACKAGE = "com.randompin.xposed";
+    static final String ACTION_REQUEST = "com.randompin.xposed.action.STATS_REQUEST";
+    static final String ACTION_REPLY = "com.randompin.xposed.action.STATS_REPLY";
+    static final String EXTRA_SNAPSHOT = "snapshot";
+    /** 发送进程创建的 PendingIntent，getCreatorPackage() 由系统填写，无法伪造 */
+    static final String EXTRA_SENDER = "sender";
+    /** 签名级权限，只有模块自身持有 */
+    static final String PERMISSION = "com.randompin.xposed.permission.DIAGNOSTICS";
+
+    static final String KEY_PROCESS = "process";
+    static final String KEY_NAMES = "names";
+    /** 每项 STAT_FIELDS 个值：count, totalNanos, maxNanos, calls, effective（非 Hook 项后两个为 -1） */
+    static final String KEY_STATS = "stats";
+    /** 每项 LatencyHistogram.BUCKETS 个桶计数 */
+    static final String KEY_BUCKETS = "buckets";
+    /** 附加的文本摘要（帧统计等），逐行显示 */
+    static final String KEY_NOTES = "notes";
+    static final int STAT_FIELDS = 5;
+
+    private static volatile boolean registered;
+    private static volatile boolean posted;
+
+    private Diagnostics() {}
+
+    /**
+     * system_server 中没有 Application，使用 ActivityThread 的系统 Context
+     * 调用方是 ATMS 的回调，持有 WM 锁，而 registerReceiver 需要 AMS 锁；
+     * 投递到主线程上注册，避免 WM -> AMS 的锁顺序反转
+     */
+    static void registerInSystemServer() {
+        if (registered || posted) return;
+        posted = true;
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    register(HomePackages.systemContext(), "system_server");
+                } catch (Throwable t) {
+                    // 不再重试
+                    registered = true;
+                    ModuleLog.w(TAG, "No system context for diagnostics: {}", t.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * 应用进程：在 Application.onCreate 时注册
+     */
+    static void hookApplication(final String process) {
+        Class<?> instrumentation = HookManifest.findClass("android.app.Instrumentation", null);
+        if (instrumentation == null) return;
+        HookManifest.hookAllMethods(instrumentation, "callApplicationOnCreate", new ProfiledHook("Instrumentation.callApplicationOnCreate", false) {
+            @Override
+            protected boolean after(MethodHookParam param) throws Throwable {
+                if (param.args.length == 0 || !(param.args[0] instanceof Context)) return false;
+                register((Context) param.args[0], process);
+                // 只需要一次
+                remove();
+                return true;
+            }
+        });
+    }
+
+    static synchronized void register(Context context, final String process) {
+        if (registered || context == null) return;
+        registered = true;
+        BroadcastReceiver receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context c, Intent intent) {
+                try {
+                    Intent reply = new Intent(ACTION_REPLY)
+                        .setPackage(MODULE_PACKAGE)
+                        .putExtra(EXTRA_SNAPSHOT, snapshot(process))
+                        .putExtra(EXTRA_SENDER, PendingIntent.getBroadcast(c, 0, new Intent(), PendingIntent.FLAG_IMMUTABLE));
+                    c.sendBroadcast(reply);
+                } catch (Throwable t) {
+                    ModuleLog.w(TAG, "Failed to publish diagnostics: {}", t.getMessage());
+                }
+            }
+        };
+        try {
+            IntentFilter filter = new IntentFilter(ACTION_REQUEST);
+            if (Build.VERSION.SDK_INT >= 33) {
+                context.registerReceiver(receiver, filter, PERMISSION, null, Context.RECEIVER_EXPORTED);
+            } else {
+                context.registerReceiver(receiver, filter, PERMISSION, null);
+            }
+            ModuleLog.d(TAG, "Diagnostics available from {}", process);
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to register diagnostics receiver: {}", t.getMessage());
+        }
+    }
+
+    /**
+     * 设置界面：回复是否来自被 Hook 的进程（system_server、SystemUI 或桌面），其他应用伪造的回复直接丢弃
+     */
+    static boolean isTrustedReply(Context context, Intent intent) {
+        PendingIntent sender = intent.getParcelableExtra(EXTRA_SENDER);
+        if (sender == null) return false;
+        String creator = sender.getCreatorPackage();
+        return "android".equals(creator) || "com.android.systemui".equals(creator) || HomePackages.contains(context, creator);
+    }
+
+    /**
+     * 本进程所有有数据的直方图 + 所有 Hook 的统计
+     */
+    static Bundle snapshot(String process) {
+        List<LatencyHistogram> histograms = new ArrayList<>();
+        // 复制一份，功能开关卸载 Hook 时会从列表中移除
+        List<ProfiledHook> hooks = new ArrayList<>(ProfiledHook.all());
+        LatencyHistogram[] fixed = {
+            KeypadShuffler.SHUFFLE_TIME,
+            ShuffleScheduler.INFLATE_TO_FIRST_FRAME,
+            ShuffleScheduler.INFLATE_TO_FIRST_FRAME_LEGACY,
+            LockExecutor.REQUEST_TO_LOCKED,
+            DoubleTapLock.INPUT_HOOK_OVERHEAD,
+            DoubleTapLock.INPUT_EVENT_AGE
+        };
+        for (LatencyHistogram histogram : fixed) {
+            if (histogram.count() > 0) {
+                histograms.add(histogram);
+            }
+        }
+        histograms.addAll(FrameTracer.histograms());
+        int fixedCount = histograms.size();
+        for (ProfiledHook hook : hooks) {
+            histograms.add(hook.time);
+        }
+
+        int n = histograms.size();
+        String[] names = new String[n];
+        long[] stats = new long[n * STAT_FIELDS];
+        long[] buckets = new long[n * LatencyHistogram.BUCKETS];
+        for (int i = 0; i < n; i++) {
+            LatencyHistogram histogram = histograms.get(i);
+            names[i] = histogram.name;
+            int base = i * STAT_FIELDS;
+            stats[base] = histogram.count();
+            stats[base + 1] = histogram.totalNanos();
+            stats[base + 2] = histogram.maxNanos();
+            if (i >= fixedCount) {
+                ProfiledHook hook = hooks.get(i - fixedCount);
+                stats[base + 3] = hook.calls();
+                stats[base + 4] = hook.effective();
+                if (hook.isRemoved()) {
+                    names[i] += " (removed)";
+                }
+            } else {
+                stats[base + 3] = -1;
+                stats[base + 4] = -1;
+            }
+            System.arraycopy(histogram.bucketCounts(), 0, buckets, i * LatencyHistogram.BUCKETS, LatencyHistogram.BUCKETS);
+        }
+
+        Bundle bundle = new Bundle();
+        bundle.putString(KEY_PROCESS, process);
+        bundle.putStringArray(KEY_NAMES, names);
+        bundle.putLongArray(KEY_STATS, stats);
+        bundle.putLongArray(KEY_BUCKETS, buckets);
+        List<String> notes = FrameTracer.summary();
+        bundle.putStringArray(KEY_NOTES, notes.toArray(new String[0]));
+        return bundle;
+    }
+
+    /**
+     * 设置界面：把快照还原成可读文本
+     */
+    static String format(Bundle bundle) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[").append(bundle.getString(KEY_PROCESS)).append("]\n");
+        String[] names = bundle.getStringArray(KEY_NAMES);
+        long[] stats = bundle.getLongArray(KEY_STATS);
+        long[] buckets = bundle.getLongArray(KEY_BUCKETS);
+        if (names == null || stats == null || buckets == null) {
+            return sb.append("(无数据)\n").toString();
+        }
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        for (int i = 0; i < names.length; i++) {
+            int base = i * STAT_FIELDS;
+            System.arraycopy(buckets, i * LatencyHistogram.BUCKETS, counts, 0, LatencyHistogram.BUCKETS);
+            LatencyHistogram histogram = new LatencyHistogram(names[i]);
+            histogram.load(counts, stats[base], stats[base + 1], stats[base + 2]);
+            sb.append(histogram);
+            if (stats[base + 3] >= 0) {
+                sb.append(" calls=").append(stats[base + 3]).append(" effective=").append(stats[base + 4]);
+            }
+            sb.append('\n');
+        }
+        String[] notes = bundle.getStringArray(KEY_NOTES);
+        if (notes != null) {
+            for (String note : notes) {
+                sb.append(note).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,80 @@
+package com.randompin.xposed;
+
+import android.view.View;
+import android.widget.TextView;
+
+import com.randompin.core.DigitClassifier;
+
+import java.lang.reflect.Field;
+
+/**
+ * 数字键识别器：core 模块 DigitClassifier 在 android.view 上的实例
+ * 每个类只在第一次遇到时反射解析一次（数字字段 / 文本子 View 下标 / 非数字键），
+ * 之后的判断只是一次 Map 查找加一次字段读取，不反射、不抛异常、不分配对象。
+ * 厂商 ROM 改名的 NumPadKey 和数字字段由 dex 扫描结果（KeyguardSymbols）补充。
+ */
+final class DigitResolver {
+
+    /** 非数字键 */
+    static final int NONE = DigitClassifier.NONE;
+
+    static final DigitClassifier<View> CLASSIFIER = new DigitClassifier<>(AndroidViewTree.INSTANCE, View.class,
+        new DigitClassifier.Symbols() {
+            @Override
+            public boolean isNumPadKey(Class<?> clazz) {
+                return KeyguardSymbols.isNumPadKey(clazz);
+            }
+
+            @Override
+            public Field digitField(Class<?> clazz) {
+                return KeyguardSymbols.digitField(clazz);
+            }
+        });
+
+    private DigitResolver() {}
+
+    /**
+     * 获取 View 的数字值
+     * @return 0-9；NumPadKey 找不到具体数字时返回 0；非数字键返回 {@link #NONE}
+     */
+    static int digitOf(View view) {
+        return CLASSIFIER.digitOf(view);
+    }
+
+    /**
+     * 是否为数字键
+     */
+    static boolean isDigitKey(View view) {
+        return CLASSIFIER.isDigitKey(view);
+    }
+
+    /**
+     * 是否可以通过改写数字字段重映射该键（找到了 int 数字字段和显示数字的子 TextView）
+     */
+    static boolean canRemap(View key) {
+        return CLASSIFIER.canRemap(key);
+    }
+
+    /**
+     * 改写按键发送的数字
+     * @return 该键没有可写的数字字段时返回 false
+     */
+    static boolean setDigit(View key, int digit) {
+        return CLASSIFIER.setDigit(key, digit);
+    }
+
+    /**
+     * 按键中显示数字的子 TextView
+     */
+    static TextView digitLabel(View key) {
+        View label = CLASSIFIER.digitLabel(key);
+        return label instanceof TextView ? (TextView) label : null;
+    }
+
+    /**
+     * 解析单个数字字符（忽略首尾空白），不分配对象
+     */
+    static int parseDigit(CharSequence text) {
+        return DigitClassifier.parseDigit(text);
+    }
+}
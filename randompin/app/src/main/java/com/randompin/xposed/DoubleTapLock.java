@@ -1,22 +1,20 @@
 package com.randompin.xposed;
 
-import android.app.KeyguardManager;
+import android.app.Activity;
 import android.content.Context;
 import android.media.AudioManager;
-import android.os.PowerManager;
 import android.os.SystemClock;
 import android.os.Vibrator;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowInsets;
-import android.view.WindowManager;
 
-import java.lang.reflect.Method;
+import com.randompin.core.DoubleTapGate;
+
 import java.util.Set;
 
 import de.robv.android.xposed.XC_MethodHook;
-import de.robv.android.xposed.XposedBridge;
 import de.robv.android.xposed.XposedHelpers;
 
 /**
@@ -26,17 +24,33 @@ import de.robv.android.xposed.XposedHelpers;
 public class DoubleTapLock {
     
     private static final String TAG = "RandomPIN-DoubleTap";
-    private static final long DOUBLE_TAP_TIMEOUT = 400; // 毫秒
-    private static long lastTapTime = 0;
-    private static float lastTapX = 0;
-    private static float lastTapY = 0;
-    private static final float TAP_SLOP = 100; // 允许的点击位置偏移
+    // 所有 Hook 共用一个入口，同一次按下的多路上报在这里合并；按下时间和壁纸命令时间分开检测
+    private static final DoubleTapGate TAP_GATE = new DoubleTapGate();
+    
+    // 输入延迟统计，仅在 persist.randompin.trace_input=1 时记录
+    static final LatencyHistogram INPUT_HOOK_OVERHEAD = new LatencyHistogram("input-hook-overhead");
+    static final LatencyHistogram INPUT_EVENT_AGE = new LatencyHistogram("input-event-age-at-hook");
     
+    /**
+     * system_server 进程：锁屏入口 + 壁纸点击命令
+     * 桌面不在模块作用域内时，壁纸点击命令是唯一能看到桌面空白处点击的地方，所以仍然安装；
+     * 桌面进程的检测器就绪后会通过 LockChannel 打招呼，该桌面在前台期间壁纸点击检测器直接返回，同一次点击不会被两边各算一次
+     */
     public static void hook(ClassLoader classLoader) {
-        // 多方案同时启用，确保至少一个有效
+        // 先跟踪桌面是否在前台，非桌面场景下所有输入 Hook 直接返回
+        HomeTracker.hook(classLoader);
+        // 接收桌面进程发来的锁屏请求
+        LockChannel.hookEndpoint(classLoader);
         hookWallpaperTap(classLoader);
-        hookPhoneWindowManager(classLoader);
+        // 全局指针 Hook（hookPhoneWindowManager）会经过每一次触摸，由 FeatureToggles.LEGACY_POINTER 单独控制
+    }
+    
+    /**
+     * 桌面进程：直接在桌面的视图树上检测双击，确认后通过 LockChannel 请求锁屏
+     */
+    public static void hookLauncherProcess(ClassLoader classLoader) {
         hookLauncher(classLoader);
+        hookDecorView(classLoader);
     }
     
     /**
@@ -45,80 +59,84 @@ public class DoubleTapLock {
     public static void hookWallpaperTap(ClassLoader classLoader) {
         try {
             // Android 系统内部的壁纸服务
-            Class<?> wallpaperManagerService = XposedHelpers.findClass(
+            Class<?> wallpaperManagerService = HookManifest.findClass(
                 "com.android.server.wallpaper.WallpaperManagerService",
                 classLoader
             );
-            
-            // 使用 hookAllMethods 覆盖所有重载
-            Set<XC_MethodHook.Unhook> unhooks = XposedBridge.hookAllMethods(
-                wallpaperManagerService, 
-                "sendWallpaperCommand", 
-                new XC_MethodHook() {
-                    @Override
-                    protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                        // 动态遍历参数，寻找 action 字符串
-                        for (Object arg : param.args) {
-                            if ("android.wallpaper.tap".equals(arg)) {
-                                handleDoubleTap("WallpaperTap");
-                                break;
+            if (wallpaperManagerService != null) {
+                // 使用 hookAllMethods 覆盖所有重载
+                Set<XC_MethodHook.Unhook> unhooks = HookManifest.hookAllMethods(
+                    wallpaperManagerService, 
+                    "sendWallpaperCommand", 
+                    new ProfiledHook("WallpaperManagerService.sendWallpaperCommand", false) {
+                        @Override
+                        protected boolean before(MethodHookParam param) throws Throwable {
+                            if (LockChannel.isLauncherConnected() || !HomeTracker.isHomeResumed()) return false;
+                            // 动态遍历参数，寻找 action 字符串
+                            for (int i = 0; i < param.args.length; i++) {
+                                if ("android.wallpaper.tap".equals(param.args[i])) {
+                                    return handleWallpaperTap("WallpaperTap", param.args, i);
+                                }
                             }
+                            return false;
                         }
                     }
-                }
-            );
+                );
             
-            if (unhooks != null && !unhooks.isEmpty()) {
-                XposedBridge.log("[" + TAG + "] Hooked WallpaperManagerService.sendWallpaperCommand");
+                if (unhooks != null && !unhooks.isEmpty()) {
+                    ModuleLog.i(TAG, "Hooked WallpaperManagerService.sendWallpaperCommand");
+                }
             }
-            
         } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] Failed to hook WallpaperManagerService: " + t.getMessage());
+            ModuleLog.w(TAG, "Failed to hook WallpaperManagerService: {}", t.getMessage());
         }
         
         // 尝试 Hook WallpaperManager internal 版本
         try {
-            Class<?> wallpaperManagerInternal = XposedHelpers.findClassIfExists(
+            Class<?> wallpaperManagerInternal = HookManifest.findClass(
                 "com.android.server.wallpaper.WallpaperManagerInternal",
                 classLoader
             );
             
             if (wallpaperManagerInternal != null) {
-                XposedBridge.hookAllMethods(
+                Set<XC_MethodHook.Unhook> hooked = HookManifest.hookAllMethods(
                     wallpaperManagerInternal,
                     "sendWallpaperCommand",
-                    new XC_MethodHook() {
+                    new ProfiledHook("WallpaperManagerInternal.sendWallpaperCommand", false) {
                         @Override
-                        protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                            for (Object arg : param.args) {
-                                if ("android.wallpaper.tap".equals(arg)) {
-                                    handleDoubleTap("WallpaperInternal");
-                                    break;
+                        protected boolean before(MethodHookParam param) throws Throwable {
+                            if (LockChannel.isLauncherConnected() || !HomeTracker.isHomeResumed()) return false;
+                            for (int i = 0; i < param.args.length; i++) {
+                                if ("android.wallpaper.tap".equals(param.args[i])) {
+                                    return handleWallpaperTap("WallpaperInternal", param.args, i);
                                 }
                             }
+                            return false;
                         }
                     }
                 );
-                XposedBridge.log("[" + TAG + "] Hooked WallpaperManagerInternal");
+                if (!hooked.isEmpty()) {
+                    ModuleLog.i(TAG, "Hooked WallpaperManagerInternal");
+                }
             }
         } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] WallpaperManagerInternal hook failed: " + t.getMessage());
+            ModuleLog.w(TAG, "WallpaperManagerInternal hook failed: {}", t.getMessage());
         }
     }
     
     /**
-     * 方案2: Hook PhoneWindowManager / WindowManagerPolicy
+     * 旧方案: Hook PhoneWindowManager / WindowManagerPolicy（system_server 全局指针事件）
      */
     public static void hookPhoneWindowManager(ClassLoader classLoader) {
         try {
             // Android 16 可能使用 WindowManagerPolicy
-            Class<?> windowManagerPolicy = XposedHelpers.findClassIfExists(
+            Class<?> windowManagerPolicy = HookManifest.findClass(
                 "com.android.server.policy.PhoneWindowManager",
                 classLoader
             );
             
             if (windowManagerPolicy == null) {
-                windowManagerPolicy = XposedHelpers.findClassIfExists(
+                windowManagerPolicy = HookManifest.findClass(
                     "com.android.server.wm.WindowManagerPolicy",
                     classLoader
                 );
@@ -126,67 +144,115 @@ public class DoubleTapLock {
             
             if (windowManagerPolicy != null) {
                 // Hook dispatchPointerEvent 或类似方法
-                XposedBridge.hookAllMethods(
+                Set<XC_MethodHook.Unhook> hooked = HookManifest.hookAllMethods(
                     windowManagerPolicy,
                     "dispatchPointerEvent",
-                    new XC_MethodHook() {
+                    new ProfiledHook("PhoneWindowManager.dispatchPointerEvent", false) {
                         @Override
-                        protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                            if (param.args.length > 0 && param.args[0] instanceof MotionEvent) {
-                                MotionEvent event = (MotionEvent) param.args[0];
-                                if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
-                                    // 检查是否在桌面区域
-                                    handleDoubleTap("PhoneWindowManager");
-                                }
+                        protected boolean before(MethodHookParam param) throws Throwable {
+                            if (!ModuleConfig.TRACE_INPUT) {
+                                return onPointerEvent(param.args);
                             }
+                            long start = System.nanoTime();
+                            boolean locked = onPointerEvent(param.args);
+                            traceInput(start, param.args[0]);
+                            return locked;
                         }
                     }
                 );
-                XposedBridge.log("[" + TAG + "] Hooked PhoneWindowManager/WindowManagerPolicy");
+                if (!hooked.isEmpty()) {
+                    ModuleLog.i(TAG, "Hooked PhoneWindowManager/WindowManagerPolicy");
+                }
             }
         } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] PhoneWindowManager hook failed: " + t.getMessage());
+            ModuleLog.w(TAG, "PhoneWindowManager hook failed: {}", t.getMessage());
         }
-        
-        // 尝试 Hook DecorView 的 dispatchTouchEvent
+    }
+    
+    /**
+     * 方案2: Hook DecorView 的 dispatchTouchEvent，覆盖非 Launcher3 系的第三方 / 厂商桌面
+     */
+    public static void hookDecorView(ClassLoader classLoader) {
         try {
             Class<?> decorViewClass = XposedHelpers.findClass(
                 "com.android.internal.policy.DecorView",
                 classLoader
             );
             
-            XposedHelpers.findAndHookMethod(
+            XC_MethodHook.Unhook hooked = HookManifest.findAndHookMethod(
                 decorViewClass,
                 "dispatchTouchEvent",
                 MotionEvent.class,
-                new XC_MethodHook() {
+                new ProfiledHook("DecorView.dispatchTouchEvent", false) {
                     @Override
-                    protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
-                        MotionEvent event = (MotionEvent) param.args[0];
-                        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
-                            View view = (View) param.thisObject;
-                            Context context = view.getContext();
-                            
-                            // 检查是否是 Launcher 进程
-                            String processName = context.getPackageName();
-                            if (processName != null && 
-                                (processName.contains("launcher") || 
-                                 processName.contains(" Launcher") ||
-                                 processName.equals("com.android.launcher3") ||
-                                 processName.equals("com.google.android.apps.nexuslauncher"))) {
-                                
-                                // 检查是否点击在空白区域（非图标）
-                                if (isTouchOnEmptyArea(view, event)) {
-                                    handleDoubleTap("DecorView-Launcher");
-                                }
-                            }
+                    protected boolean before(MethodHookParam param) throws Throwable {
+                        if (!ModuleConfig.TRACE_INPUT) {
+                            return onDecorTouchEvent((View) param.thisObject, (MotionEvent) param.args[0]);
                         }
+                        long start = System.nanoTime();
+                        boolean locked = onDecorTouchEvent((View) param.thisObject, (MotionEvent) param.args[0]);
+                        traceInput(start, param.args[0]);
+                        return locked;
                     }
                 }
             );
-            XposedBridge.log("[" + TAG + "] Hooked DecorView.dispatchTouchEvent");
+            if (hooked != null) {
+                ModuleLog.i(TAG, "Hooked DecorView.dispatchTouchEvent");
+            }
         } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] DecorView hook failed: " + t.getMessage());
+            ModuleLog.w(TAG, "DecorView hook failed: {}", t.getMessage());
+        }
+    }
+    
+    /**
+     * PhoneWindowManager.dispatchPointerEvent 的处理逻辑（输入分发线程）
+     */
+    private static boolean onPointerEvent(Object[] args) {
+        // 只有桌面在前台时才做手势判断，其他应用中的触摸只付出一次 volatile 读取
+        if (!HomeTracker.isHomeResumed()) return false;
+        if (args.length > 0 && args[0] instanceof MotionEvent) {
+            MotionEvent event = (MotionEvent) args[0];
+            if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                return handleDoubleTap("PhoneWindowManager", DoubleTapGate.SOURCE_POINTER_DOWN, null, event.getEventTime(), event.getRawX(), event.getRawY());
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * DecorView.dispatchTouchEvent 的处理逻辑（窗口 UI 线程）
+     */
+    private static boolean onDecorTouchEvent(View view, MotionEvent event) {
+        if (!HomeTracker.isHomeResumed()) return false;
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            Context context = view.getContext();
+            
+            // 检查是否是桌面应用（包名集合预先解析，这里只是一次查找）
+            if (HomePackages.contains(context, context.getPackageName())) {
+                
+                // 检查是否点击在空白区域（非图标）
+                if (OccupancyIndex.forWindow(view).isEmpty(event.getX(), event.getY())) {
+                    return handleDoubleTap("DecorView-Launcher", DoubleTapGate.SOURCE_POINTER_DOWN, view, event.getEventTime(), event.getRawX(), event.getRawY());
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 记录按下事件在 Hook 中的耗时，以及事件从产生到分发到这里的延迟
+     * 对比模块关闭时的数据需要借助 dumpsys input / Perfetto，这里只统计模块自身增加的部分
+     */
+    private static void traceInput(long startNanos, Object arg) {
+        long now = System.nanoTime();
+        if (!(arg instanceof MotionEvent)) return;
+        MotionEvent event = (MotionEvent) arg;
+        if (event.getActionMasked() != MotionEvent.ACTION_DOWN) return;
+        INPUT_HOOK_OVERHEAD.record(now - startNanos);
+        INPUT_EVENT_AGE.record((SystemClock.uptimeMillis() - event.getEventTime()) * 1000000L);
+        if ((INPUT_HOOK_OVERHEAD.count() & 0xFF) == 0) {
+            ModuleLog.d(TAG, "{}", INPUT_HOOK_OVERHEAD);
+            ModuleLog.d(TAG, "{}", INPUT_EVENT_AGE);
         }
     }
     
@@ -196,306 +262,164 @@ public class DoubleTapLock {
     public static void hookLauncher(ClassLoader classLoader) {
         // Hook Launcher3 的 Workspace
         try {
-            Class<?> workspaceClass = XposedHelpers.findClassIfExists(
+            Class<?> workspaceClass = HookManifest.findClass(
                 "com.android.launcher3.Workspace",
                 classLoader
             );
             
             if (workspaceClass != null) {
-                XposedHelpers.findAndHookMethod(
+                XC_MethodHook.Unhook hooked = HookManifest.findAndHookMethod(
                     workspaceClass,
                     "onInterceptTouchEvent",
                     MotionEvent.class,
-                    new XC_MethodHook() {
+                    new ProfiledHook("Workspace.onInterceptTouchEvent", false) {
                         @Override
-                        protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
+                        protected boolean before(MethodHookParam param) throws Throwable {
                             MotionEvent event = (MotionEvent) param.args[0];
-                            if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
-                                handleDoubleTap("Launcher-Workspace");
+                            if (event.getActionMasked() != MotionEvent.ACTION_DOWN) return false;
+                            // Workspace 会拦截所有触摸（包括图标），按整个窗口的占用索引判断
+                            View root = ((View) param.thisObject).getRootView();
+                            if (OccupancyIndex.forWindow(root).isEmptyOnScreen(event.getRawX(), event.getRawY())) {
+                                return handleDoubleTap("Launcher-Workspace", DoubleTapGate.SOURCE_POINTER_DOWN, root, event.getEventTime(), event.getRawX(), event.getRawY());
                             }
+                            return false;
                         }
                     }
                 );
-                XposedBridge.log("[" + TAG + "] Hooked Launcher3.Workspace");
+                if (hooked != null) {
+                    ModuleLog.i(TAG, "Hooked Launcher3.Workspace");
+                }
             }
         } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] Launcher3.Workspace hook failed: " + t.getMessage());
+            ModuleLog.w(TAG, "Launcher3.Workspace hook failed: {}", t.getMessage());
         }
         
         // Hook 原生 Launcher 的 onTouchEvent
         try {
-            Class<?> launcherClass = XposedHelpers.findClassIfExists(
+            Class<?> launcherClass = HookManifest.findClass(
                 "com.android.launcher3.Launcher",
                 classLoader
             );
             
             if (launcherClass == null) {
-                launcherClass = XposedHelpers.findClassIfExists(
+                launcherClass = HookManifest.findClass(
                     "com.google.android.apps.nexuslauncher.NexusLauncher",
                     classLoader
                 );
             }
             
             if (launcherClass != null) {
-                XposedBridge.hookAllMethods(
+                Set<XC_MethodHook.Unhook> hooked = HookManifest.hookAllMethods(
                     launcherClass,
                     "onTouchEvent",
-                    new XC_MethodHook() {
+                    new ProfiledHook("Launcher.onTouchEvent", false) {
                         @Override
-                        protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
+                        protected boolean before(MethodHookParam param) throws Throwable {
                             MotionEvent event = (MotionEvent) param.args[0];
                             if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
-                                handleDoubleTap("Launcher-onTouch");
+                                View decor = ((Activity) param.thisObject).getWindow().getDecorView();
+                                return handleDoubleTap("Launcher-onTouch", DoubleTapGate.SOURCE_POINTER_DOWN, decor, event.getEventTime(), event.getRawX(), event.getRawY());
                             }
+                            return false;
                         }
                     }
                 );
-                XposedBridge.log("[" + TAG + "] Hooked Launcher.onTouchEvent");
+                if (!hooked.isEmpty()) {
+                    ModuleLog.i(TAG, "Hooked Launcher.onTouchEvent");
+                }
             }
         } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] Launcher hook failed: " + t.getMessage());
+            ModuleLog.w(TAG, "Launcher hook failed: {}", t.getMessage());
         }
         
         // Hook DragLayer (Launcher 的根布局)
         try {
-            Class<?> dragLayerClass = XposedHelpers.findClassIfExists(
-                "com.android.launcher3.DragLayer",
+            // 新版 Launcher3 移到了 dragndrop 包下
+            Class<?> dragLayerClass = HookManifest.findClass(
+                "com.android.launcher3.dragndrop.DragLayer",
                 classLoader
             );
+            if (dragLayerClass == null) {
+                dragLayerClass = HookManifest.findClass(
+                    "com.android.launcher3.DragLayer",
+                    classLoader
+                );
+            }
             
             if (dragLayerClass != null) {
-                XposedHelpers.findAndHookMethod(
+                XC_MethodHook.Unhook hooked = HookManifest.findAndHookMethod(
                     dragLayerClass,
                     "onInterceptTouchEvent",
                     MotionEvent.class,
-                    new XC_MethodHook() {
+                    new ProfiledHook("DragLayer.onInterceptTouchEvent", false) {
                         @Override
-                        protected void beforeHookedMethod(MethodHookParam param) throws Throwable {
+                        protected boolean before(MethodHookParam param) throws Throwable {
                             MotionEvent event = (MotionEvent) param.args[0];
                             if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
-                                // 只有点击空白区域才处理
+                                // 只有点击空白区域才处理；与 DecorView 共用同一个窗口索引，按屏幕坐标查询
                                 ViewGroup dragLayer = (ViewGroup) param.thisObject;
-                                if (!isTouchOnChild(dragLayer, event)) {
-                                    handleDoubleTap("DragLayer");
+                                if (OccupancyIndex.forWindow(dragLayer).isEmptyOnScreen(event.getRawX(), event.getRawY())) {
+                                    return handleDoubleTap("DragLayer", DoubleTapGate.SOURCE_POINTER_DOWN, dragLayer, event.getEventTime(), event.getRawX(), event.getRawY());
                                 }
                             }
+                            return false;
                         }
                     }
                 );
-                XposedBridge.log("[" + TAG + "] Hooked Launcher3.DragLayer");
+                if (hooked != null) {
+                    ModuleLog.i(TAG, "Hooked Launcher3.DragLayer");
+                }
             }
         } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] DragLayer hook failed: " + t.getMessage());
+            ModuleLog.w(TAG, "DragLayer hook failed: {}", t.getMessage());
         }
     }
     
     /**
-     * 处理双击检测
+     * 壁纸点击命令: sendWallpaperCommand(window, action, x, y, z, extras)，坐标紧跟在 action 之后
+     * 命令本身没有事件时间，用当前时间代替；桌面在抬起时才发送，所以不能和按下时间放进同一个检测器
      */
-    private static void handleDoubleTap(String source) {
-        long currentTime = SystemClock.uptimeMillis();
-        
-        // 检测双击
-        if (currentTime - lastTapTime < DOUBLE_TAP_TIMEOUT && 
-            currentTime - lastTapTime > 50) {
-            XposedBridge.log("[" + TAG + "] Double tap detected from " + source + ". Locking screen.");
-            lockScreen();
-            lastTapTime = 0;
-        } else {
-            lastTapTime = currentTime;
+    private static boolean handleWallpaperTap(String source, Object[] args, int actionIndex) {
+        float x = 0;
+        float y = 0;
+        if (actionIndex + 2 < args.length && args[actionIndex + 1] instanceof Integer && args[actionIndex + 2] instanceof Integer) {
+            x = (Integer) args[actionIndex + 1];
+            y = (Integer) args[actionIndex + 2];
         }
+        return handleDoubleTap(source, DoubleTapGate.SOURCE_WALLPAPER_COMMAND, null, SystemClock.uptimeMillis(), x, y);
     }
     
     /**
-     * 检查触摸是否在子 View 上
+     * 处理双击检测
+     * @param sourceType 事件时间的来源，见 {@link DoubleTapGate}
+     * @param view 桌面进程中触摸所在窗口的视图，用于发出锁屏请求；system_server 中为 null
+     * @param eventTime 按下事件的时间 (uptime 毫秒)
+     * @param x 屏幕坐标，多个来源上报同一次按下时据此去重
+     * @param y 屏幕坐标
+     * @return 是否构成双击并发出了锁屏请求
      */
-    private static boolean isTouchOnChild(ViewGroup parent, MotionEvent event) {
-        float x = event.getX();
-        float y = event.getY();
-        
-        for (int i = 0; i < parent.getChildCount(); i++) {
-            View child = parent.getChildAt(i);
-            if (child.getVisibility() == View.VISIBLE) {
-                float childLeft = child.getLeft();
-                float childTop = child.getTop();
-                float childRight = child.getRight();
-                float childBottom = child.getBottom();
-                
-                if (x >= childLeft && x <= childRight && 
-                    y >= childTop && y <= childBottom) {
-                    return true;
-                }
-            }
+    private static boolean handleDoubleTap(String source, int sourceType, View view, long eventTime, float x, float y) {
+        if (view != null) {
+            LockChannel.announce(view);
         }
-        return false;
-    }
-    
-    /**
-     * 检查触摸是否在空白区域
-     */
-    private static boolean isTouchOnEmptyArea(View view, MotionEvent event) {
-        if (!(view instanceof ViewGroup)) {
+        if (TAP_GATE.onTap(sourceType, eventTime, x, y)) {
+            ModuleLog.d(TAG, "Double tap detected from {}. Locking screen.", source);
+            lockScreen(view);
             return true;
         }
-        
-        ViewGroup viewGroup = (ViewGroup) view;
-        float x = event.getX();
-        float y = event.getY();
-        
-        // 检查是否点击在任何可点击的子 View 上
-        for (int i = 0; i < viewGroup.getChildCount(); i++) {
-            View child = viewGroup.getChildAt(i);
-            if (child.getVisibility() == View.VISIBLE && child.isClickable()) {
-                float childLeft = child.getLeft();
-                float childTop = child.getTop();
-                float childRight = child.getRight();
-                float childBottom = child.getBottom();
-                
-                if (x >= childLeft && x <= childRight && 
-                    y >= childTop && y <= childBottom) {
-                    return false;
-                }
-            }
-        }
-        
-        return true;
+        return false;
     }
     
     /**
      * 执行锁屏
      */
-    private static void lockScreen() {
-        try {
-            // 方案0: 终极方案，如果我们在 system_server (android)，直接调用底层的 IWindowManager.lockNow
-            // 这可以完全绕过 Android 15/16 针对普通应用、服务或反射 PowerManager 增加的各种限制安全策略
-            try {
-                // IBinder b = ServiceManager.getService(Context.WINDOW_SERVICE);
-                Class<?> serviceManagerClass = XposedHelpers.findClass("android.os.ServiceManager", null);
-                Object windowServiceBinder = XposedHelpers.callStaticMethod(serviceManagerClass, "getService", Context.WINDOW_SERVICE);
-                
-                if (windowServiceBinder != null) {
-                    // IWindowManager wm = IWindowManager.Stub.asInterface(b);
-                    Class<?> stubClass = XposedHelpers.findClass("android.view.IWindowManager$Stub", null);
-                    Object iWindowManager = XposedHelpers.callStaticMethod(stubClass, "asInterface", windowServiceBinder);
-                    
-                    if (iWindowManager != null) {
-                        // wm.lockNow(null); 或者 wm.lockNow(); (不同 Android 版本参数可能不同)
-                        try {
-                            XposedHelpers.callMethod(iWindowManager, "lockNow", (Object) null);
-                        } catch (Throwable t) {
-                            try {
-                                XposedHelpers.callMethod(iWindowManager, "lockNow");
-                            } catch (Throwable t2) {
-                                throw t2;
-                            }
-                        }
-                        XposedBridge.log("[" + TAG + "] Screen locked via robust IWindowManager.lockNow in system_server");
-                        return;
-                    }
-                }
-            } catch (Throwable e) {
-                XposedBridge.log("[" + TAG + "] IWindowManager.lockNow failed: " + e.getMessage());
-            }
-            
-            Context context = getSystemContext();
-            if (context == null) {
-                XposedBridge.log("[" + TAG + "] Failed to get context, trying shell command");
-                tryShellLock();
-                return;
-            }
-            
-            // 方案1: 使用 KeyguardManager 锁屏 (Android 8+)
-            try {
-                KeyguardManager km = (KeyguardManager) context.getSystemService(Context.KEYGUARD_SERVICE);
-                if (km != null) {
-                    km.requestDismissKeyguard(null, null);
-                }
-            } catch (Throwable ignored) {}
-            
-            // 方案2: 使用 PowerManager.goToSleep
-            try {
-                PowerManager pm = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
-                if (pm != null) {
-                    Method goToSleep = PowerManager.class.getDeclaredMethod("goToSleep", long.class);
-                    goToSleep.setAccessible(true);
-                    goToSleep.invoke(pm, SystemClock.uptimeMillis());
-                    XposedBridge.log("[" + TAG + "] Screen locked via PowerManager.goToSleep");
-                    return;
-                }
-            } catch (Throwable e) {
-                XposedBridge.log("[" + TAG + "] goToSleep failed (Expected on A15+): " + e.getMessage());
-            }
-            
-            // 方案3: 使用普通 WindowManager 的 lockNow
-            try {
-                WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-                if (wm != null) {
-                    Method lockNow = wm.getClass().getDeclaredMethod("lockNow");
-                    lockNow.setAccessible(true);
-                    lockNow.invoke(wm);
-                    XposedBridge.log("[" + TAG + "] Screen locked via context WindowManager.lockNow");
-                    return;
-                }
-            } catch (Throwable e) {
-                XposedBridge.log("[" + TAG + "] WindowManager lock failed: " + e.getMessage());
-            }
-            
-            // 方案4: 发送 ACTION_CLOSE_SYSTEM_DIALOGS 广播
-            try {
-                context.sendBroadcast(new android.content.Intent(android.content.Intent.ACTION_CLOSE_SYSTEM_DIALOGS));
-            } catch (Throwable ignored) {}
-            
-            // 方案5: Shell 命令作为最后保底
-            tryShellLock();
-            
-        } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] Error locking screen: " + t.getMessage());
-            tryShellLock();
-        }
-    }
-    
-    /**
-     * 获取系统 Context
-     */
-    private static Context getSystemContext() {
-        try {
-            Class<?> activityThreadClass = XposedHelpers.findClass("android.app.ActivityThread", null);
-            Object currentActivityThread = XposedHelpers.callStaticMethod(activityThreadClass, "currentActivityThread");
-            return (Context) XposedHelpers.callMethod(currentActivityThread, "getSystemContext");
-        } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] Failed to get system context: " + t.getMessage());
-        }
-        return null;
-    }
-    
-    /**
-     * 使用 Shell 命令锁屏
-     */
-    private static void tryShellLock() {
-        try {
-            // 使用 input keyevent 26 (KEYCODE_POWER) 锁屏
-            Runtime.getRuntime().exec(new String[]{"input", "keyevent", "26"});
-            XposedBridge.log("[" + TAG + "] Screen locked via shell command (keyevent 26)");
-            return;
-        } catch (Throwable e) {
-            XposedBridge.log("[" + TAG + "] keyevent 26 failed: " + e.getMessage());
-        }
-        
-        try {
-            // 使用 input keyevent 6 (KEYCODE_SLEEP)
-            Runtime.getRuntime().exec(new String[]{"input", "keyevent", "6"});
-            XposedBridge.log("[" + TAG + "] Screen locked via shell command (keyevent 6)");
-            return;
-        } catch (Throwable e) {
-            XposedBridge.log("[" + TAG + "] keyevent 6 failed: " + e.getMessage());
-        }
-        
-        try {
-            // 使用 cmd power 锁屏 (Android 11+)
-            Runtime.getRuntime().exec(new String[]{"cmd", "power", "sleep"});
-            XposedBridge.log("[" + TAG + "] Screen locked via cmd power sleep");
-        } catch (Throwable e) {
-            XposedBridge.log("[" + TAG + "] cmd power sleep failed: " + e.getMessage());
+    private static void lockScreen(View view) {
+        if (view == null) {
+            // system_server 内：交给锁屏线程执行，输入 Hook 立即返回
+            LockExecutor.requestLock();
+        } else {
+            // 桌面进程内：一次 Binder 调用交给 system_server
+            LockChannel.send(view);
         }
     }
-}
\ No newline at end of file
+}
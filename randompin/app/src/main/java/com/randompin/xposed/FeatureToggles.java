@@ -0,0 +1,177 @@
+package com.randompin.xposed;
+
+import android.content.SharedPreferences;
+
+import de.robv.android.xposed.XSharedPreferences;
+
+/**
+ * 功能开关
+ * 设置界面把开关写入模块自身的 SharedPreferences（LSPosed 的 xposedsharedprefs 让被 Hook 进程可读），
+ * 被 Hook 进程在加载时通过 XSharedPreferences 读取一次，关闭的功能一个 Hook 都不安装。
+ * 之后只依赖 XSharedPreferences 的文件变更通知（不轮询）：功能被关闭时通过 Unhook 句柄卸载它的全部 Hook，
+ * 重新打开时用加载时登记的安装过程补装。不支持变更通知的框架上，修改在下次重启后生效。
+ */
+final class FeatureToggles {
+
+    private static final String TAG = "RandomPIN-Toggles";
+
+    // 以下常量也被设置界面使用，只能是编译期常量（模块自身进程里不一定有 Xposed API）
+    static final String PREFS_NAME = "features";
+    static final String KEY_SHUFFLE = "shuffle";
+    static final String KEY_HARD_SHUFFLE = "hard_shuffle";
+    static final String KEY_DOUBLE_TAP = "double_tap";
+    static final String KEY_LEGACY_POINTER = "legacy_pointer";
+
+    /** 不属于任何功能的 Hook（诊断等），不受开关控制 */
+    static final int NONE = -1;
+    /** SystemUI：PIN 键盘乱序 */
+    static final int SHUFFLE = 0;
+    /** system_server + 桌面：双击锁屏 */
+    static final int DOUBLE_TAP = 1;
+    /** system_server：全局指针事件 Hook（旧方案），依赖 DOUBLE_TAP */
+    static final int LEGACY_POINTER = 2;
+
+    private static final String[] KEYS = {KEY_SHUFFLE, KEY_DOUBLE_TAP, KEY_LEGACY_POINTER};
+    private static final int[] REQUIRES = {NONE, NONE, DOUBLE_TAP};
+
+    private static XSharedPreferences prefs;
+    private static final boolean[] enabled = new boolean[KEYS.length];
+    private static final Runnable[] installers = new Runnable[KEYS.length];
+    private static final boolean[] installed = new boolean[KEYS.length];
+    private static volatile int strategy = ModuleConfig.SHUFFLE_STRATEGY;
+    /** 正在安装的功能，ProfiledHook 构造时据此归类 */
+    private static volatile int installing = NONE;
+
+    private static final SharedPreferences.OnSharedPreferenceChangeListener LISTENER =
+        new SharedPreferences.OnSharedPreferenceChangeListener() {
+            @Override
+            public void onSharedPreferenceChanged(SharedPreferences p, String key) {
+                onChanged();
+            }
+        };
+
+    private FeatureToggles() {}
+
+    /**
+     * 读取一次开关，需要在安装任何 Hook 之前调用
+     * 文件不可读（未在设置界面保存过或框架不支持）时使用默认值
+     */
+    static synchronized void load() {
+        try {
+            prefs = new XSharedPreferences(Diagnostics.MODULE_PACKAGE, PREFS_NAME);
+        } catch (Throwable t) {
+            prefs = null;
+            ModuleLog.w(TAG, "Feature preferences unavailable: {}", t.getMessage());
+        }
+        read();
+        ModuleLog.i(TAG, "Features: shuffle={} ({}), doubleTap={}",
+            enabled[SHUFFLE], KeypadShuffler.strategyName(strategy), enabled[DOUBLE_TAP]);
+        ModuleLog.i(TAG, "Legacy pointer hook: {}", enabled[LEGACY_POINTER]);
+    }
+
+    /**
+     * 功能当前是否开启（依赖的功能关闭时也视为关闭）
+     */
+    static synchronized boolean isEnabled(int feature) {
+        return enabled[feature] && (REQUIRES[feature] == NONE || enabled[REQUIRES[feature]]);
+    }
+
+    /**
+     * 当前洗牌策略，随设置实时变化
+     */
+    static int shuffleStrategy() {
+        return strategy;
+    }
+
+    /**
+     * 登记一个功能的安装过程，功能开启时立即安装
+     * 期间创建的 ProfiledHook 都归属于该功能，关闭时一起卸载
+     */
+    static synchronized void install(int feature, Runnable installer) {
+        installers[feature] = installer;
+        if (isEnabled(feature)) {
+            runInstaller(feature);
+        } else {
+            ModuleLog.i(TAG, "{} disabled, no hooks installed", KEYS[feature]);
+        }
+    }
+
+    static int installing() {
+        return installing;
+    }
+
+    /**
+     * 开始监听设置变更，在 handleLoadPackage 结束时调用
+     */
+    static synchronized void watch() {
+        if (prefs == null) return;
+        try {
+            prefs.registerOnSharedPreferenceChangeListener(LISTENER);
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Change notification unsupported, toggles apply after reboot: {}", t.getMessage());
+        }
+    }
+
+    private static synchronized void onChanged() {
+        if (prefs.hasFileChanged()) {
+            prefs.reload();
+        }
+        read();
+        for (int feature = 0; feature < KEYS.length; feature++) {
+            if (installers[feature] == null) {
+                // 本进程不负责该功能
+                continue;
+            }
+            boolean on = isEnabled(feature);
+            if (on && !installed[feature]) {
+                runInstaller(feature);
+            } else if (!on && installed[feature]) {
+                uninstall(feature);
+            }
+        }
+    }
+
+    private static void read() {
+        SharedPreferences p = prefs;
+        enabled[SHUFFLE] = getBoolean(p, KEY_SHUFFLE, true);
+        enabled[DOUBLE_TAP] = getBoolean(p, KEY_DOUBLE_TAP, true);
+        // 设置界面没有保存过时沿用系统属性
+        enabled[LEGACY_POINTER] = getBoolean(p, KEY_LEGACY_POINTER, ModuleConfig.LEGACY_POINTER_HOOK);
+        strategy = getBoolean(p, KEY_HARD_SHUFFLE, ModuleConfig.SHUFFLE_STRATEGY == KeypadShuffler.STRATEGY_HARD)
+            ? KeypadShuffler.STRATEGY_HARD
+            : KeypadShuffler.STRATEGY_LABEL_REMAP;
+    }
+
+    private static boolean getBoolean(SharedPreferences p, String key, boolean def) {
+        if (p == null) return def;
+        try {
+            return p.getBoolean(key, def);
+        } catch (Throwable t) {
+            return def;
+        }
+    }
+
+    private static void runInstaller(int feature) {
+        long start = System.nanoTime();
+        installing = feature;
+        try {
+            installers[feature].run();
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to install {}: {}", KEYS[feature], t.getMessage());
+        } finally {
+            installing = NONE;
+        }
+        installed[feature] = true;
+        ModuleLog.i(TAG, "Installed {} in {} us", KEYS[feature], (System.nanoTime() - start) / 1000);
+    }
+
+    private static void uninstall(int feature) {
+        int count = ProfiledHook.removeFeature(feature);
+        installed[feature] = false;
+        if (feature == DOUBLE_TAP) {
+            // 前台跟踪 Hook 已卸载，标志不再更新
+            HomeTracker.reset();
+        }
+        ModuleLog.i(TAG, "Disabled {}, removed {} hooks", KEYS[feature], count);
+    }
+}
@@ -0,0 +1,171 @@
+package com.randompin.xposed;
+
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 弹出层显示期间的帧耗时统计（SystemUI 进程，persist.randompin.trace_frames=1 时启用）
+ * 弹出层显示时在主线程的 Choreographer 上连续注册帧回调，记录相邻两帧 vsync 时间差和丢帧数，
+ * 隐藏时按 "洗牌策略 / SDK / Hook 路径" 分组汇总，便于对比不同 ROM 和策略的卡顿情况。
+ * 每帧只写一个预分配数组的槽位，汇总在隐藏时一次完成。
+ */
+final class FrameTracer implements Choreographer.FrameCallback {
+
+    private static final String TAG = "RandomPIN-Frames";
+
+    /** 单次显示最多记录的帧数，超过后自动结束（防止漏掉隐藏回调时一直追踪） */
+    private static final int MAX_FRAMES = 600;
+
+    private static final ConcurrentHashMap<String, Group> GROUPS = new ConcurrentHashMap<>();
+
+    /** 当前正在追踪的弹出层，只在主线程访问 */
+    private static FrameTracer active;
+
+    private final View securityView;
+    private final long frameIntervalNanos;
+    private final long[] durations = new long[MAX_FRAMES];
+    private int count;
+    private long lastFrameNanos;
+    private boolean running;
+
+    private FrameTracer(View securityView) {
+        this.securityView = securityView;
+        Display display = securityView.getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : 60f;
+        this.frameIntervalNanos = (long) (1000000000L / (refreshRate > 1 ? refreshRate : 60f));
+    }
+
+    /**
+     * 弹出层显示，必须在主线程调用
+     */
+    static void start(View securityView) {
+        if (active != null) {
+            if (active.securityView == securityView) return;
+            active.finish();
+        }
+        active = new FrameTracer(securityView);
+        active.running = true;
+        Choreographer.getInstance().postFrameCallback(active);
+    }
+
+    /**
+     * 弹出层隐藏，必须在主线程调用
+     */
+    static void stop(View securityView) {
+        if (active != null && active.securityView == securityView) {
+            active.finish();
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) return;
+        if (lastFrameNanos != 0) {
+            durations[count++] = frameTimeNanos - lastFrameNanos;
+            if (count == MAX_FRAMES) {
+                finish();
+                return;
+            }
+        }
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private void finish() {
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        if (active == this) {
+            active = null;
+        }
+        if (count == 0) return;
+
+        String key = groupKey(securityView);
+        Group group = GROUPS.get(key);
+        if (group == null) {
+            group = new Group(key);
+            Group existing = GROUPS.putIfAbsent(key, group);
+            if (existing != null) group = existing;
+        }
+        long missed = 0;
+        for (int i = 0; i < count; i++) {
+            long duration = durations[i];
+            group.durations.record(duration);
+            // 超过 1.5 个刷新周期算丢帧，按跨过的周期数计
+            if (duration * 2 > frameIntervalNanos * 3) {
+                missed += (duration + frameIntervalNanos / 2) / frameIntervalNanos - 1;
+            }
+        }
+        group.sessions.incrementAndGet();
+        group.frames.addAndGet(count);
+        group.missed.addAndGet(missed);
+        ModuleLog.d(TAG, "{}", group);
+    }
+
+    /**
+     * 分组键：实际使用的洗牌策略 + SDK + MainHook 中按 SDK 选择的 Hook 路径
+     */
+    private static String groupKey(View securityView) {
+        int strategy = -1;
+        for (Keypad keypad : KeypadRegistry.locate(securityView)) {
+            if (keypad.strategy >= 0) {
+                strategy = keypad.strategy;
+                break;
+            }
+        }
+        int sdk = Build.VERSION.SDK_INT;
+        return (strategy >= 0 ? KeypadShuffler.strategyName(strategy) : "none")
+            + "/sdk" + sdk
+            + (sdk >= 35 ? "/android15-hooks" : "/legacy-hooks");
+    }
+
+    static List<LatencyHistogram> histograms() {
+        List<LatencyHistogram> result = new ArrayList<>();
+        for (Group group : GROUPS.values()) {
+            result.add(group.durations);
+        }
+        return result;
+    }
+
+    /**
+     * 导出用的文本摘要，第一行为 ROM 指纹
+     */
+    static List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        if (GROUPS.isEmpty()) return lines;
+        lines.add("rom=" + HookManifest.buildKey());
+        for (Group group : GROUPS.values()) {
+            lines.add(group.toString());
+        }
+        return lines;
+    }
+
+    private static final class Group {
+        final String key;
+        final LatencyHistogram durations;
+        final AtomicLong sessions = new AtomicLong();
+        final AtomicLong frames = new AtomicLong();
+        final AtomicLong missed = new AtomicLong();
+
+        Group(String key) {
+            this.key = key;
+            this.durations = new LatencyHistogram("frames[" + key + "]");
+        }
+
+        @Override
+        public String toString() {
+            long total = frames.get();
+            long lost = missed.get();
+            return String.format(java.util.Locale.US, "frames[%s]: sessions=%d frames=%d missed=%d (%.1f%%) p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                key, sessions.get(), total, lost, total == 0 ? 0 : lost * 100.0 / (total + lost),
+                durations.percentileNanos(50) / 1e6, durations.percentileNanos(90) / 1e6,
+                durations.percentileNanos(99) / 1e6, durations.maxNanos() / 1e6);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.randompin.xposed;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.robv.android.xposed.XposedHelpers;
+
+/**
+ * 桌面 (HOME) 应用包名集合
+ * 通过 PackageManager 解析一次后保存为不可变集合，只在应用安装/更新/卸载或默认桌面变化时重新解析；
+ * 触摸事件中的判断只是一次引用比较或一次哈希查找，第三方桌面同样适用。
+ */
+final class HomePackages {
+
+    private static final String TAG = "RandomPIN-HomePkgs";
+
+    /** 隐藏 API Intent.ACTION_PREFERRED_ACTIVITY_CHANGED */
+    private static final String ACTION_PREFERRED_ACTIVITY_CHANGED = "android.intent.action.ACTION_PREFERRED_ACTIVITY_CHANGED";
+
+    private static volatile Set<String> packages;
+    /** 最近一次命中的包名，同一进程内 getPackageName() 返回同一个 String 实例，可直接比较引用 */
+    private static volatile String lastMatch;
+    /** 最近一次校验通过的 Binder 调用方 uid，桌面的 uid 不会变化，命中后只是一次整数比较 */
+    private static volatile int lastUid = -1;
+    private static boolean receiverRegistered;
+
+    private HomePackages() {}
+
+    /**
+     * 包名是否属于桌面应用，第一次调用时用传入的 Context 解析并注册刷新广播
+     */
+    static boolean contains(Context context, String packageName) {
+        if (packageName == null) return false;
+        if (packageName == lastMatch) return true;
+        Set<String> current = packages;
+        if (current == null) {
+            current = init(context);
+        }
+        if (current.contains(packageName)) {
+            lastMatch = packageName;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Binder 调用方的 uid 是否属于桌面应用（system_server 校验锁屏请求的来源）
+     * 共享 uid 的应用按其中任一包名判断
+     */
+    static boolean isHomeUid(Context context, int uid) {
+        if (uid == lastUid) return true;
+        String[] names = context.getPackageManager().getPackagesForUid(uid);
+        if (names == null) return false;
+        for (String name : names) {
+            if (contains(context, name)) {
+                lastUid = uid;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * system_server 中没有 Application，使用 ActivityThread 的系统 Context
+     */
+    static Context systemContext() {
+        Object activityThread = XposedHelpers.callStaticMethod(
+            XposedHelpers.findClass("android.app.ActivityThread", null), "currentActivityThread");
+        return (Context) XposedHelpers.callMethod(activityThread, "getSystemContext");
+    }
+
+    private static synchronized Set<String> init(Context context) {
+        if (packages != null) {
+            return packages;
+        }
+        refresh(context);
+        registerReceiver(context);
+        return packages;
+    }
+
+    /**
+     * 重新解析所有可作为桌面的应用
+     * 优先级为负的 HOME Activity（如 Settings 的 FallbackHome）只在开机过渡时使用，不算作桌面
+     */
+    static void refresh(Context context) {
+        Set<String> result = new HashSet<>();
+        try {
+            PackageManager pm = context.getPackageManager();
+            Intent home = new Intent(Intent.ACTION_MAIN).addCategory(Intent.CATEGORY_HOME);
+            List<ResolveInfo> infos = pm.queryIntentActivities(home, 0);
+            if (infos != null) {
+                for (ResolveInfo info : infos) {
+                    if (info.activityInfo != null && info.priority >= 0) {
+                        result.add(info.activityInfo.packageName);
+                    }
+                }
+            }
+            // 默认桌面一定包含在内
+            ResolveInfo preferred = pm.resolveActivity(home, PackageManager.MATCH_DEFAULT_ONLY);
+            if (preferred != null && preferred.activityInfo != null && !"android".equals(preferred.activityInfo.packageName)) {
+                result.add(preferred.activityInfo.packageName);
+            }
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to resolve home packages: {}", t.getMessage());
+        }
+        packages = Collections.unmodifiableSet(result);
+        lastMatch = null;
+        lastUid = -1;
+        ModuleLog.d(TAG, "Home packages: {}", result);
+        LockChannel.onHomePackagesChanged(context);
+    }
+
+    private static void registerReceiver(final Context context) {
+        if (receiverRegistered) {
+            return;
+        }
+        receiverRegistered = true;
+        try {
+            Context appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+            BroadcastReceiver receiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context c, Intent intent) {
+                    refresh(context);
+                }
+            };
+            IntentFilter packageFilter = new IntentFilter();
+            packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            packageFilter.addDataScheme("package");
+            appContext.registerReceiver(receiver, packageFilter);
+            appContext.registerReceiver(receiver, new IntentFilter(ACTION_PREFERRED_ACTIVITY_CHANGED));
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to register package receiver: {}", t.getMessage());
+        }
+    }
+}
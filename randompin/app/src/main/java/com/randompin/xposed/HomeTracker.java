@@ -0,0 +1,129 @@
+package com.randompin.xposed;
+
+import android.content.pm.ActivityInfo;
+
+import java.lang.reflect.Method;
+
+import de.robv.android.xposed.XC_MethodHook;
+import de.robv.android.xposed.XposedHelpers;
+
+/**
+ * 跟踪桌面 (Home) 是否为当前处于前台的 Activity（system_server 进程）
+ * 通过 ActivityTaskManagerService 记录"最后一个 resumed Activity"的回调更新一个 volatile 标志，
+ * 输入 Hook 只需读取一次该标志即可在非桌面场景下直接返回，不再对每次触摸做手势判断。
+ */
+final class HomeTracker {
+
+    private static final String TAG = "RandomPIN-Home";
+
+    /**
+     * 桌面是否在前台
+     * 跟踪 Hook 安装失败时保持 true，退回到不区分前台应用的旧行为
+     */
+    private static volatile boolean homeResumed = true;
+    /** 最近一次 resume 的桌面 Activity 所属 uid，未知时为 -1 */
+    private static volatile int homeUid = -1;
+
+    private static volatile Method isActivityTypeHome;
+
+    private HomeTracker() {}
+
+    static boolean isHomeResumed() {
+        return homeResumed;
+    }
+
+    static int homeUid() {
+        return homeUid;
+    }
+
+    /**
+     * 跟踪 Hook 卸载或重新安装时恢复默认值：卸载期间错过的 resume 变化无从得知，
+     * 保留旧值可能让重新开启后的双击一直被当作"桌面不在前台"
+     */
+    static void reset() {
+        homeResumed = true;
+        homeUid = -1;
+    }
+
+    static void hook(ClassLoader classLoader) {
+        reset();
+        // ActivityTaskManagerService (安卓10+) 在 resumed Activity 变化时调用
+        // 安卓10-13: setResumedActivityUncheckLocked；安卓11+: setLastResumedActivityUncheckLocked
+        Class<?> atms = HookManifest.findClass("com.android.server.wm.ActivityTaskManagerService", classLoader);
+        boolean hooked = false;
+        if (atms != null) {
+            XC_MethodHook callback = new ProfiledHook("ATMS.setResumedActivity", false) {
+                @Override
+                protected boolean after(MethodHookParam param) throws Throwable {
+                    if (param.args.length > 0 && param.args[0] != null) {
+                        onResumedActivityChanged(param.args[0]);
+                        return true;
+                    }
+                    return false;
+                }
+            };
+            try {
+                hooked |= !HookManifest.hookAllMethods(atms, "setLastResumedActivityUncheckLocked", callback).isEmpty();
+                hooked |= !HookManifest.hookAllMethods(atms, "setResumedActivityUncheckLocked", callback).isEmpty();
+            } catch (Throwable t) {
+                ModuleLog.w(TAG, "ActivityTaskManagerService hook failed: {}", t.getMessage());
+            }
+        }
+
+        if (hooked) {
+            ModuleLog.i(TAG, "Tracking home activity via ActivityTaskManagerService");
+        } else {
+            ModuleLog.w(TAG, "Home tracking unavailable, double tap is not gated by foreground app");
+        }
+    }
+
+    /**
+     * 参数为 ActivityRecord，反射方法只在第一次回调时解析
+     */
+    private static void onResumedActivityChanged(Object activityRecord) {
+        try {
+            Method method = isActivityTypeHome;
+            if (method == null || !method.getDeclaringClass().isInstance(activityRecord)) {
+                method = findIsActivityTypeHome(activityRecord.getClass());
+                isActivityTypeHome = method;
+            }
+            boolean home = (Boolean) method.invoke(activityRecord);
+            if (home) {
+                homeUid = uidOf(activityRecord);
+            }
+            // 有 Activity 被 resume 说明系统服务都已就绪，提前解析锁屏方式、注册诊断接收器（只在第一次生效）
+            LockExecutor.prepare();
+            Diagnostics.registerInSystemServer();
+            if (home != homeResumed) {
+                homeResumed = home;
+                ModuleLog.d(TAG, "Home resumed: {}", home);
+            }
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to read activity type: {}", t.getMessage());
+        }
+    }
+
+    /**
+     * ActivityRecord.info 在各版本中都是 final 字段
+     */
+    private static int uidOf(Object activityRecord) {
+        try {
+            ActivityInfo info = (ActivityInfo) XposedHelpers.getObjectField(activityRecord, "info");
+            return info.applicationInfo.uid;
+        } catch (Throwable t) {
+            return -1;
+        }
+    }
+
+    private static Method findIsActivityTypeHome(Class<?> clazz) throws NoSuchMethodException {
+        // isActivityTypeHome 定义在 ConfigurationContainer 上，ActivityRecord 继承而来
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            try {
+                Method method = c.getDeclaredMethod("isActivityTypeHome");
+                method.setAccessible(true);
+                return method;
+            } catch (NoSuchMethodException ignored) {}
+        }
+        throw new NoSuchMethodException("isActivityTypeHome");
+    }
+}
@@ -0,0 +1,269 @@
+package com.randompin.xposed;
+
+import android.os.Build;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import de.robv.android.xposed.XC_MethodHook;
+import de.robv.android.xposed.XposedBridge;
+import de.robv.android.xposed.XposedHelpers;
+import de.robv.android.xposed.callbacks.XC_LoadPackage;
+
+/**
+ * Hook 探测结果清单，按系统指纹 (Build.FINGERPRINT) + 模块版本号缓存
+ * 第一次启动时照常探测每个类/方法并记录结果，之后的启动直接跳过已知不存在的类和方法，
+ * 省掉 ClassNotFoundException / NoSuchMethodError 的开销和失败日志。
+ * 系统升级（指纹变化）或模块升级后清单自动作废，重新探测。
+ * 文件位置: system_server 为 /data/system/randompin/，其他进程为自身的 device protected 数据目录
+ */
+final class HookManifest {
+
+    private static final String TAG = "RandomPIN-Manifest";
+
+    /** system_server 中模块可写的目录（JVM 上的 harness 通过 Java 系统属性改到临时目录） */
+    static final String SYSTEM_DATA_DIR = System.getProperty("randompin.system_data_dir", "/data/system/randompin");
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Map<String, Boolean> RESULTS = new HashMap<>();
+    private static File file;
+    private static String key;
+    private static boolean dirty;
+    private static int skipped;
+    private static long openNanos;
+
+    private HookManifest() {}
+
+    /**
+     * 加载当前进程的清单，需要在所有探测之前调用
+     */
+    static void open(XC_LoadPackage.LoadPackageParam lpparam) {
+        openNanos = System.nanoTime();
+        skipped = 0;
+        key = buildKey();
+        file = manifestFile(lpparam);
+        RESULTS.clear();
+        dirty = false;
+        if (file == null || !file.isFile()) {
+            return;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+            if (!key.equals(reader.readLine())) {
+                // 系统或模块已升级，旧结果作废
+                dirty = true;
+                ModuleLog.i(TAG, "Manifest outdated, probing again");
+                return;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.lastIndexOf('\t');
+                if (tab > 0) {
+                    RESULTS.put(line.substring(0, tab), "1".equals(line.substring(tab + 1)));
+                }
+            }
+            ModuleLog.d(TAG, "Loaded {} probe results from {}", RESULTS.size(), file);
+        } catch (Throwable t) {
+            RESULTS.clear();
+            ModuleLog.w(TAG, "Failed to read manifest: {}", t.getMessage());
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * 缓存键：系统指纹 + 模块版本号，任一变化都会让缓存作废
+     */
+    static String buildKey() {
+        return Build.FINGERPRINT + "/" + BuildConfig.VERSION_CODE;
+    }
+
+    /**
+     * 该探测是否已知会失败（上次启动时在同一系统版本上失败过）
+     */
+    static boolean isKnownMissing(String probe) {
+        Boolean found = RESULTS.get(probe);
+        if (found != null && !found) {
+            skipped++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 记录一次探测结果
+     */
+    static void record(String probe, boolean found) {
+        Boolean previous = RESULTS.put(probe, found);
+        if (previous == null || previous != found) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * 查找类，已知不存在的类直接返回 null 而不再尝试加载
+     */
+    static Class<?> findClass(String className, ClassLoader classLoader) {
+        if (isKnownMissing(className)) {
+            return null;
+        }
+        Class<?> clazz = XposedHelpers.findClassIfExists(className, classLoader);
+        record(className, clazz != null);
+        return clazz;
+    }
+
+    /**
+     * hookAllMethods 的带清单版本：已知没有该方法时直接跳过
+     * @return 没有任何重载时返回空集合
+     */
+    static Set<XC_MethodHook.Unhook> hookAllMethods(Class<?> clazz, String methodName, XC_MethodHook callback) {
+        String probe = clazz.getName() + "#" + methodName;
+        if (isKnownMissing(probe)) {
+            return Collections.emptySet();
+        }
+        Set<XC_MethodHook.Unhook> unhooks = XposedBridge.hookAllMethods(clazz, methodName, callback);
+        record(probe, unhooks != null && !unhooks.isEmpty());
+        return attach(callback, unhooks);
+    }
+
+    /**
+     * 挂载所有构造函数（构造函数一定存在，不需要记录到清单）
+     */
+    static Set<XC_MethodHook.Unhook> hookAllConstructors(Class<?> clazz, XC_MethodHook callback) {
+        return attach(callback, XposedBridge.hookAllConstructors(clazz, callback));
+    }
+
+    /**
+     * 把 Unhook 句柄交给 ProfiledHook，用于长期无效时自动卸载
+     */
+    private static Set<XC_MethodHook.Unhook> attach(XC_MethodHook callback, Set<XC_MethodHook.Unhook> unhooks) {
+        if (unhooks == null) {
+            return Collections.emptySet();
+        }
+        if (callback instanceof ProfiledHook) {
+            ((ProfiledHook) callback).attach(unhooks);
+        }
+        return unhooks;
+    }
+
+    /**
+     * findAndHookMethod 的带清单版本：已知没有该方法时直接跳过
+     * @return 方法不存在时返回 null
+     */
+    static XC_MethodHook.Unhook findAndHookMethod(Class<?> clazz, String methodName, Object... parameterTypesAndCallback) {
+        String probe = clazz.getName() + "#" + methodName + "/" + (parameterTypesAndCallback.length - 1);
+        if (isKnownMissing(probe)) {
+            return null;
+        }
+        try {
+            XC_MethodHook.Unhook unhook = XposedHelpers.findAndHookMethod(clazz, methodName, parameterTypesAndCallback);
+            record(probe, true);
+            Object callback = parameterTypesAndCallback[parameterTypesAndCallback.length - 1];
+            if (callback instanceof ProfiledHook) {
+                ((ProfiledHook) callback).attach(Collections.singleton(unhook));
+            }
+            return unhook;
+        } catch (NoSuchMethodError e) {
+            record(probe, false);
+            return null;
+        }
+    }
+
+    /**
+     * 有新结果时在后台线程写回清单，在 handleLoadPackage 结束时调用
+     */
+    static void save() {
+        // 用于对比清单生效前后的 Hook 安装耗时
+        ModuleLog.i(TAG, "Hook setup took {} us, skipped {} known-missing probes",
+            (System.nanoTime() - openNanos) / 1000, skipped);
+        if (!dirty || file == null) {
+            return;
+        }
+        dirty = false;
+        final File target = file;
+        final String header = key;
+        final Map<String, Boolean> snapshot = new HashMap<>(RESULTS);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write(target, header, snapshot);
+            }
+        }, "RandomPIN-Manifest");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
+    private static void write(File target, String header, Map<String, Boolean> results) {
+        File dir = target.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            ModuleLog.w(TAG, "Cannot create {}", dir);
+            return;
+        }
+        // 先写临时文件再重命名，避免进程被杀时留下半个清单
+        File temp = new File(target.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(temp), UTF_8);
+            writer.write(header);
+            writer.write('\n');
+            for (Map.Entry<String, Boolean> entry : results.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write('\t');
+                writer.write(entry.getValue() ? '1' : '0');
+                writer.write('\n');
+            }
+            writer.close();
+            writer = null;
+            if (!temp.renameTo(target)) {
+                ModuleLog.w(TAG, "Failed to rename manifest to {}", target);
+                return;
+            }
+            ModuleLog.d(TAG, "Saved {} probe results to {}", results.size(), target);
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to write manifest: {}", t.getMessage());
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private static File manifestFile(XC_LoadPackage.LoadPackageParam lpparam) {
+        return dataFile(lpparam, "hooks-" + lpparam.packageName + ".manifest");
+    }
+
+    /**
+     * 模块在被 Hook 进程中可写的缓存文件位置
+     */
+    static File dataFile(XC_LoadPackage.LoadPackageParam lpparam, String name) {
+        if ("android".equals(lpparam.packageName)) {
+            return new File(SYSTEM_DATA_DIR, name);
+        }
+        if (lpparam.appInfo == null) {
+            return null;
+        }
+        String dir = lpparam.appInfo.deviceProtectedDataDir != null
+            ? lpparam.appInfo.deviceProtectedDataDir
+            : lpparam.appInfo.dataDir;
+        return dir != null ? new File(new File(dir, "randompin"), name) : null;
+    }
+
+    static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Throwable ignored) {}
+        }
+    }
+}
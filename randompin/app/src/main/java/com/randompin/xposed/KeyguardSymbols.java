@@ -0,0 +1,220 @@
+package com.randompin.xposed;
+
+import com.randompin.core.DexScanner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.robv.android.xposed.callbacks.XC_LoadPackage;
+
+/**
+ * SystemUI 键盘相关符号的解析结果（由 {@link DexScanner} 生成）
+ * 每个系统指纹只扫描一次 APK，结果写入缓存文件；之后的启动在 Hook 安装前同步读取，
+ * 让 Hook 直接绑定到正确的类和字段，而不是在运行时按名字猜。
+ * 首次启动时扫描在后台进行，完成前沿用运行时识别；完成后清空 DigitResolver 的策略缓存，
+ * 之前已识别过的类按扫描结果重新解析。
+ */
+final class KeyguardSymbols {
+
+    private static final String TAG = "RandomPIN-Symbols";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** 当前生效的解析结果，尚未扫描完成时为 null */
+    static volatile KeyguardSymbols current;
+
+    final String numPadKeyClass;
+    final String digitFieldOwner;
+    final String digitFieldName;
+    final Set<String> numPadKeyClasses;
+    final List<String> pinViewClasses;
+
+    private KeyguardSymbols(String numPadKeyClass, String digitFieldOwner, String digitFieldName,
+                            Set<String> numPadKeyClasses, List<String> pinViewClasses) {
+        this.numPadKeyClass = numPadKeyClass;
+        this.digitFieldOwner = digitFieldOwner;
+        this.digitFieldName = digitFieldName;
+        this.numPadKeyClasses = Collections.unmodifiableSet(numPadKeyClasses);
+        this.pinViewClasses = Collections.unmodifiableList(pinViewClasses);
+    }
+
+    /**
+     * 读取当前指纹的解析结果；没有或已过期时在后台扫描 APK
+     */
+    static void load(XC_LoadPackage.LoadPackageParam lpparam) {
+        final File file = HookManifest.dataFile(lpparam, "symbols-" + lpparam.packageName + ".map");
+        final String key = HookManifest.buildKey();
+        if (file != null && file.isFile()) {
+            KeyguardSymbols symbols = read(file, key);
+            if (symbols != null) {
+                current = symbols;
+                ModuleLog.d(TAG, "Loaded symbols: numPadKey={}, digit={}#{}",
+                    symbols.numPadKeyClass, symbols.digitFieldOwner, symbols.digitFieldName);
+                return;
+            }
+        }
+        if (lpparam.appInfo == null || lpparam.appInfo.sourceDir == null) {
+            return;
+        }
+
+        final List<File> apks = new ArrayList<>();
+        apks.add(new File(lpparam.appInfo.sourceDir));
+        if (lpparam.appInfo.splitSourceDirs != null) {
+            for (String split : lpparam.appInfo.splitSourceDirs) {
+                apks.add(new File(split));
+            }
+        }
+        Thread scanner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                scan(apks, file, key);
+            }
+        }, "RandomPIN-DexScan");
+        scanner.setDaemon(true);
+        scanner.setPriority(Thread.MIN_PRIORITY);
+        scanner.start();
+    }
+
+    private static void scan(List<File> apks, File file, String key) {
+        long start = System.nanoTime();
+        DexScanner.Result result;
+        try {
+            result = DexScanner.scanApks(apks);
+        } catch (Throwable t) {
+            // 部分 ROM 的 APK 不含 dex（只有预编译的 oat/vdex），此时只能依赖运行时识别
+            ModuleLog.w(TAG, "Dex scan failed: {}", t.getMessage());
+            return;
+        }
+        ModuleLog.i(TAG, "Scanned SystemUI dex in {} ms: {}", (System.nanoTime() - start) / 1000000, result);
+
+        // 没有扫描到任何类时也写入空结果，避免每次启动重复扫描
+        KeyguardSymbols symbols = new KeyguardSymbols(result.numPadKeyClass, result.digitFieldOwner,
+            result.digitFieldName, new HashSet<>(result.numPadKeyClasses), result.pinViewClasses);
+        current = symbols;
+        // 扫描完成前已经识别过的类按运行时规则缓存了策略，让它们按新符号重新解析
+        DigitResolver.CLASSIFIER.invalidate();
+        if (file != null) {
+            write(file, key, symbols);
+        }
+    }
+
+    /**
+     * 该类是否为 NumPadKey 或其子类（包括厂商改名的版本）
+     */
+    static boolean isNumPadKey(Class<?> clazz) {
+        KeyguardSymbols symbols = current;
+        if (symbols == null) return false;
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            if (symbols.numPadKeyClasses.contains(c.getName())) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 按解析结果直接取得数字字段，不匹配时返回 null
+     */
+    static Field digitField(Class<?> clazz) {
+        KeyguardSymbols symbols = current;
+        if (symbols == null || symbols.digitFieldOwner == null) return null;
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            if (!symbols.digitFieldOwner.equals(c.getName())) continue;
+            try {
+                Field field = c.getDeclaredField(symbols.digitFieldName);
+                if (field.getType() != int.class || Modifier.isStatic(field.getModifiers())) return null;
+                field.setAccessible(true);
+                return field;
+            } catch (Throwable t) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static KeyguardSymbols read(File file, String key) {
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+            if (!key.equals(reader.readLine())) {
+                return null;
+            }
+            String numPadKey = null;
+            String digitOwner = null;
+            String digitName = null;
+            Set<String> numPadKeys = new HashSet<>();
+            List<String> pinViews = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) continue;
+                String type = line.substring(0, tab);
+                String value = line.substring(tab + 1);
+                if ("numpad".equals(type)) {
+                    numPadKey = value;
+                } else if ("digit".equals(type)) {
+                    int hash = value.indexOf('#');
+                    if (hash > 0) {
+                        digitOwner = value.substring(0, hash);
+                        digitName = value.substring(hash + 1);
+                    }
+                } else if ("key".equals(type)) {
+                    numPadKeys.add(value);
+                } else if ("pinview".equals(type)) {
+                    pinViews.add(value);
+                }
+            }
+            return new KeyguardSymbols(numPadKey, digitOwner, digitName, numPadKeys, pinViews);
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to read symbols: {}", t.getMessage());
+            return null;
+        } finally {
+            HookManifest.closeQuietly(reader);
+        }
+    }
+
+    private static void write(File file, String key, KeyguardSymbols symbols) {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            ModuleLog.w(TAG, "Cannot create {}", dir);
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(temp), UTF_8);
+            writer.write(key + "\n");
+            if (symbols.numPadKeyClass != null) {
+                writer.write("numpad\t" + symbols.numPadKeyClass + "\n");
+            }
+            if (symbols.digitFieldOwner != null) {
+                writer.write("digit\t" + symbols.digitFieldOwner + "#" + symbols.digitFieldName + "\n");
+            }
+            for (String name : symbols.numPadKeyClasses) {
+                writer.write("key\t" + name + "\n");
+            }
+            for (String name : symbols.pinViewClasses) {
+                writer.write("pinview\t" + name + "\n");
+            }
+            writer.close();
+            writer = null;
+            if (!temp.renameTo(file)) {
+                ModuleLog.w(TAG, "Failed to rename symbols to {}", file);
+            }
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to write symbols: {}", t.getMessage());
+        } finally {
+            HookManifest.closeQuietly(writer);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.randompin.xposed;
+
+import android.view.Display;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
+
+import com.randompin.core.Shuffles;
+
+import java.lang.reflect.Field;
+
+/**
+ * 一个已定位的数字键盘容器（锁屏 PIN / SIM PIN / SIM PUK）
+ * 以 Tag 形式挂在容器自身上，生命周期与容器一致
+ */
+final class Keypad {
+
+    static final int KIND_UNKNOWN = 0;
+    static final int KIND_PIN = 1;
+    static final int KIND_SIM_PIN = 2;
+    static final int KIND_SIM_PUK = 3;
+
+    final ViewGroup container;
+    final int kind;
+    final int displayId;
+
+    // 调度器已为该容器安排了待执行的洗牌（仅主线程访问）
+    boolean pending;
+    // 下次显示前需要重新洗牌：新登记、弹出层隐藏、息屏或容器离开窗口时置位
+    boolean needsShuffle = true;
+    // 尚未执行的预绘制洗牌监听
+    ViewTreeObserver.OnPreDrawListener preDrawListener;
+    // 待执行洗牌的超时：按键迟迟不齐时撤销监听
+    Runnable readyTimeout;
+    // 已挂一次性附着监听，等容器附着到窗口后再安排洗牌
+    boolean awaitingAttach;
+    // 本轮 inflate 开始时刻（System.nanoTime），洗牌后首帧提交时清零
+    long startNanos;
+    // 最近一次生效的洗牌策略
+    int strategy = -1;
+
+    // 标签重映射所需的原始状态，按原始数字索引
+    Shuffles.RemapState<View> remap;
+    // 外层 KeyguardPinBasedInputView.mButtons
+    Object buttonsOwner;
+    Field buttonsField;
+
+    Keypad(ViewGroup container) {
+        this.container = container;
+        this.kind = detectKind(container);
+        Display display = container.getDisplay();
+        this.displayId = display != null ? display.getDisplayId() : Display.DEFAULT_DISPLAY;
+    }
+
+    /**
+     * 根据外层安全视图的类名判断键盘类型
+     */
+    private static int detectKind(ViewGroup container) {
+        for (ViewParent p = container; p != null; p = p.getParent()) {
+            String name = p.getClass().getSimpleName();
+            if (name.contains("SimPuk")) return KIND_SIM_PUK;
+            if (name.contains("SimPin")) return KIND_SIM_PIN;
+            if (name.contains("PINView") || name.contains("PinView")) return KIND_PIN;
+        }
+        return KIND_UNKNOWN;
+    }
+
+    static String kindName(int kind) {
+        switch (kind) {
+            case KIND_PIN: return "PIN";
+            case KIND_SIM_PIN: return "SIM-PIN";
+            case KIND_SIM_PUK: return "SIM-PUK";
+            default: return "UNKNOWN";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return kindName(kind) + "@display" + displayId;
+    }
+}
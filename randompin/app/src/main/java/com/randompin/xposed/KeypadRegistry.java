@@ -0,0 +1,91 @@
+package com.randompin.xposed;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import com.randompin.core.KeypadSearch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 数字键盘容器登记表
+ * 单次遍历找出视图树中所有数字键盘（PIN / SIM PIN / SIM PUK，多屏幕各自的键盘），
+ * 之后洗牌和重新洗牌路径通过容器 Tag 以 O(1) 取回，不再反复递归整棵锁屏视图树。
+ * 登记表只弱引用 Keypad，容器被销毁后自动失效。
+ */
+final class KeypadRegistry {
+
+    private static final int TAG_KEYPAD = 0x4B455950; // "KEYP" 标记 - 已登记的键盘容器
+
+    private static final Map<Keypad, Boolean> LIVE = new WeakHashMap<>();
+
+    private KeypadRegistry() {}
+
+    /**
+     * 取出容器对应的键盘，未登记返回 null
+     */
+    static Keypad get(ViewGroup container) {
+        Object tag = container.getTag(TAG_KEYPAD);
+        return tag instanceof Keypad ? (Keypad) tag : null;
+    }
+
+    /**
+     * 取出某个数字键所在的键盘，未登记返回 null
+     */
+    static Keypad forKey(View key) {
+        ViewParent parent = key.getParent();
+        return parent instanceof ViewGroup ? get((ViewGroup) parent) : null;
+    }
+
+    /**
+     * 取出某个数字键所在的键盘；未登记时从其根视图执行一次定位
+     */
+    static Keypad findOrLocate(View key) {
+        Keypad keypad = forKey(key);
+        if (keypad == null && key.getParent() != null) {
+            locate(key.getRootView());
+            keypad = forKey(key);
+        }
+        return keypad;
+    }
+
+    /**
+     * 当前仍存活的所有键盘
+     */
+    static List<Keypad> all() {
+        synchronized (LIVE) {
+            return new ArrayList<>(LIVE.keySet());
+        }
+    }
+
+    /**
+     * 单次遍历 root 下的整棵视图树，登记并返回所有数字键盘容器
+     * 每个 View 最多被判定一次；找到键盘后不再深入其子树
+     */
+    static List<Keypad> locate(View root) {
+        List<View> containers = new ArrayList<>();
+        KeypadSearch.locate(AndroidViewTree.INSTANCE, DigitResolver.CLASSIFIER, root, containers);
+        List<Keypad> found = new ArrayList<>(containers.size());
+        for (View container : containers) {
+            found.add(register((ViewGroup) container));
+        }
+        return found;
+    }
+
+    private static Keypad register(ViewGroup container) {
+        Keypad keypad = get(container);
+        if (keypad == null) {
+            keypad = new Keypad(container);
+            container.setTag(TAG_KEYPAD, keypad);
+            synchronized (LIVE) {
+                LIVE.put(keypad, Boolean.TRUE);
+            }
+            ShuffleScheduler.onKeypadRegistered(keypad);
+        }
+        return keypad;
+    }
+}
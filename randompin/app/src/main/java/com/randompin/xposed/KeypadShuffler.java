@@ -0,0 +1,166 @@
+package com.randompin.xposed;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import com.randompin.core.KeypadSearch;
+import com.randompin.core.Shuffles;
+
+import java.lang.reflect.Field;
+
+
+/**
+ * 数字键盘洗牌策略
+ *
+ * HARD：交换按键 View 的 ID 与 LayoutParams 后 removeAllViews / addView 重组容器，
+ *       会触发 ConstraintLayout 的完整测量布局
+ * LABEL_REMAP：所有 View 原地不动，只改写每个 NumPadKey 发送和显示的数字
+ *       （数字字段、数字标签、字母标签、无障碍描述），不重组视图层级
+ *
+ * LABEL_REMAP 依赖能写入的数字字段，找不到时自动回退到 HARD，保证显示的数字与输入的数字一致。
+ * 两种策略的视图操作在 core 模块的 Shuffles 中实现，这里负责选择策略和 Android 特有的 mButtons 同步。
+ */
+final class KeypadShuffler {
+
+    private static final String TAG = "RandomPIN-Shuffle";
+
+    static final int STRATEGY_HARD = 0;
+    static final int STRATEGY_LABEL_REMAP = 1;
+
+    /** 单次洗牌（含排列获取和视图改写）的耗时 */
+    static final LatencyHistogram SHUFFLE_TIME = new LatencyHistogram("shuffle");
+
+    private KeypadShuffler() {}
+
+    static String strategyName(int strategy) {
+        return strategy == STRATEGY_LABEL_REMAP ? "label-remap" : "hard";
+    }
+
+    /**
+     * 按配置的策略洗牌一次，排列取自预生成的排列池
+     * @return 是否成功
+     */
+    static boolean shuffle(Keypad keypad) {
+        long start = System.nanoTime();
+        int[] perm = PermutationPool.take();
+        boolean done = false;
+        if (FeatureToggles.shuffleStrategy() == STRATEGY_LABEL_REMAP) {
+            done = remapLabels(keypad, perm);
+            if (done) {
+                keypad.strategy = STRATEGY_LABEL_REMAP;
+            }
+        }
+        if (!done) {
+            done = hardShuffle(keypad.container, perm);
+            if (done) {
+                keypad.strategy = STRATEGY_HARD;
+            }
+        }
+        if (done) {
+            keypad.needsShuffle = false;
+            SHUFFLE_TIME.record(System.nanoTime() - start);
+        }
+        return done;
+    }
+
+    /**
+     * 计算容器中的数字按钮数量
+     */
+    static int countDigitButtons(ViewGroup container) {
+        return KeypadSearch.countDigitKeys(AndroidViewTree.INSTANCE, DigitResolver.CLASSIFIER, container);
+    }
+
+    /**
+     * 标签重映射：原位置第 d 个数字键改为发送并显示 perm[d]
+     */
+    static boolean remapLabels(Keypad keypad, int[] perm) {
+        if (keypad.remap == null && !snapshotForRemap(keypad)) {
+            return false;
+        }
+
+        if (!Shuffles.remap(AndroidViewTree.INSTANCE, DigitResolver.CLASSIFIER, keypad.remap, perm)) {
+            return false;
+        }
+
+        // 物理键盘输入通过 mButtons[digit].performClick() 触发，需要同步调整顺序
+        if (keypad.buttonsField != null) {
+            View[] keys = keypad.remap.keys;
+            try {
+                Object[] buttons = (Object[]) keypad.buttonsField.get(keypad.buttonsOwner);
+                if (buttons != null && buttons.length == 10) {
+                    for (int d = 0; d < 10; d++) {
+                        buttons[perm[d]] = keys[d];
+                    }
+                }
+            } catch (Throwable t) {
+                ModuleLog.w(TAG, "Failed to reorder mButtons: {}", t.getMessage());
+            }
+        }
+
+        ModuleLog.d(TAG, "Remapped labels of {}", keypad);
+        return true;
+    }
+
+    /**
+     * 记录重映射所需的原始状态：按原始数字索引的按键、标签和描述（每个键盘只执行一次）
+     */
+    private static boolean snapshotForRemap(Keypad keypad) {
+        Shuffles.RemapState<View> state = Shuffles.RemapState.capture(
+            AndroidViewTree.INSTANCE, DigitResolver.CLASSIFIER, keypad.container);
+        if (state == null) {
+            return false;
+        }
+        keypad.remap = state;
+        findButtonsArray(keypad);
+        return true;
+    }
+
+    /**
+     * 查找外层 KeyguardPinBasedInputView 的 mButtons 数组
+     */
+    private static void findButtonsArray(Keypad keypad) {
+        for (ViewParent p = keypad.container.getParent(); p != null; p = p.getParent()) {
+            for (Class<?> c = p.getClass(); c != null && c != View.class; c = c.getSuperclass()) {
+                try {
+                    Field field = c.getDeclaredField("mButtons");
+                    if (field.getType().isArray()) {
+                        field.setAccessible(true);
+                        keypad.buttonsOwner = p;
+                        keypad.buttonsField = field;
+                        return;
+                    }
+                } catch (NoSuchFieldException ignored) {}
+            }
+        }
+    }
+
+    /**
+     * 暴力洗牌算法：剥离出来直接重构父容器
+     */
+    static boolean hardShuffle(ViewGroup container, int[] perm) {
+        if (container == null) return false;
+        
+        try {
+            int shuffled = Shuffles.hard(AndroidViewTree.INSTANCE, DigitResolver.CLASSIFIER, container, perm, PermutationPool.random());
+            // 如果数字按键不足10个，记录并退出
+            if (shuffled < 10) {
+                ModuleLog.d(TAG, "Only found {} digit buttons, skipping shuffle", shuffled);
+                return false;
+            }
+            ModuleLog.d(TAG, "Hard Randomized {} PIN Buttons successfully!", shuffled);
+            return true;
+            
+        } catch (Throwable t) {
+            ModuleLog.e(TAG, "Error in hardShuffle: {}", t);
+            return false;
+        }
+    }
+
+    /**
+     * Fisher-Yates 生成 0..n-1 的随机排列（数字键不是恰好 10 个时使用）
+     */
+    static int[] randomPermutation(int n) {
+        return Shuffles.randomPermutation(n, PermutationPool.random());
+    }
+}
@@ -0,0 +1,107 @@
+package com.randompin.xposed;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定大小的无锁延迟直方图
+ * 第 i 个桶统计 [2^i, 2^(i+1)) 微秒的样本，记录时只做几次原子加，不分配对象
+ */
+final class LatencyHistogram {
+
+    static final int BUCKETS = 32;
+
+    final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        long micros = nanos / 1000;
+        int bucket = micros <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(micros);
+        buckets.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // 其他线程抢先更新了最大值，重试
+        }
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    long totalNanos() {
+        return totalNanos.get();
+    }
+
+    long maxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * 近似百分位（取所在桶的上界），单位纳秒
+     */
+    long percentileNanos(double percentile) {
+        long total = count.get();
+        if (total == 0) return 0;
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min((1L << (i + 1)) * 1000, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * 复制各桶计数，用于跨进程导出
+     */
+    long[] bucketCounts() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = buckets.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * 用跨进程导出的数据覆盖当前内容
+     */
+    void load(long[] counts, long count, long totalNanos, long maxNanos) {
+        for (int i = 0; i < BUCKETS && i < counts.length; i++) {
+            buckets.set(i, counts[i]);
+        }
+        this.count.set(count);
+        this.totalNanos.set(totalNanos);
+        this.maxNanos.set(maxNanos);
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        long n = count.get();
+        if (n == 0) return name + ": n=0";
+        return String.format(java.util.Locale.US, "%s: n=%d avg=%.2fms p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+            name, n, totalNanos.get() / 1e6 / n,
+            percentileNanos(50) / 1e6, percentileNanos(90) / 1e6, percentileNanos(99) / 1e6,
+            maxNanos.get() / 1e6);
+    }
+}
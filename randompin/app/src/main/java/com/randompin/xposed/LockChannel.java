@@ -0,0 +1,144 @@
+package com.randompin.xposed;
+
+import android.app.WallpaperManager;
+import android.content.Context;
+import android.os.Binder;
+import android.os.IBinder;
+import android.view.View;
+
+import java.util.Set;
+
+import de.robv.android.xposed.XC_MethodHook;
+
+/**
+ * 桌面进程 -> system_server 的锁屏请求通道
+ * 桌面进程确认双击后，借用公开 API WallpaperManager.sendWallpaperCommand 发出一个自定义命令，
+ * 该调用经由桌面自己的 IWindowSession 到达 system_server 的 Session.sendWallpaperCommand，
+ * 在那里被拦截并转交 LockExecutor，不会再转发给壁纸服务。
+ * 整个请求只有一次 Binder 调用，不需要额外注册服务或广播。
+ * 任何应用都能调用 sendWallpaperCommand，所以 system_server 先用 Binder.getCallingUid() 确认调用方是桌面应用，
+ * 其他应用发出的同名命令不拦截，照常转发给壁纸服务。
+ */
+final class LockChannel {
+
+    private static final String TAG = "RandomPIN-LockChannel";
+
+    static final String ACTION_LOCK = "com.randompin.xposed.action.LOCK";
+    /** 桌面进程的检测器已就绪，system_server 据此停用壁纸点击检测器 */
+    static final String ACTION_HELLO = "com.randompin.xposed.action.HELLO";
+
+    /** 桌面进程：ACTION_HELLO 已发出 */
+    private static volatile boolean announced;
+    /** system_server：发出 ACTION_HELLO 的桌面 uid，未连接时为 -1 */
+    private static volatile int connectedUid = -1;
+
+    private LockChannel() {}
+
+    /**
+     * system_server：当前桌面的进程是否已经在自己的视图树上检测双击
+     * 只认发过招呼的那个桌面：默认桌面换成作用域外的桌面后，前台桌面的 uid 不再匹配，壁纸点击检测器随即恢复
+     */
+    static boolean isLauncherConnected() {
+        int uid = connectedUid;
+        if (uid < 0) return false;
+        int home = HomeTracker.homeUid();
+        // 前台跟踪不可用时无法区分，沿用连接状态
+        return home < 0 || home == uid;
+    }
+
+    /**
+     * system_server：桌面应用集合变化（安装、卸载、默认桌面变化）后由 HomePackages 调用，
+     * 发过招呼的应用已不再是桌面时断开连接
+     */
+    static void onHomePackagesChanged(Context context) {
+        int uid = connectedUid;
+        if (uid >= 0 && !HomePackages.isHomeUid(context, uid)) {
+            connectedUid = -1;
+            ModuleLog.i(TAG, "Launcher {} is no longer a home app, wallpaper tap detector enabled", uid);
+        }
+    }
+
+    /**
+     * 桌面进程：通知 system_server 桌面检测器已就绪，每个进程只发一次
+     */
+    static void announce(View view) {
+        if (announced) return;
+        announced = command(view, ACTION_HELLO);
+    }
+
+    /**
+     * 桌面进程：请求锁屏，view 必须已经附加到窗口上
+     * @return 请求是否已发出
+     */
+    static boolean send(View view) {
+        return command(view, ACTION_LOCK);
+    }
+
+    private static boolean command(View view, String action) {
+        IBinder token = view.getWindowToken();
+        if (token == null) {
+            return false;
+        }
+        try {
+            WallpaperManager.getInstance(view.getContext()).sendWallpaperCommand(token, action, 0, 0, 0, null);
+            return true;
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to send {}: {}", action, t.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * system_server：拦截 Session.sendWallpaperCommand 中的锁屏命令
+     */
+    static void hookEndpoint(ClassLoader classLoader) {
+        Class<?> session = HookManifest.findClass("com.android.server.wm.Session", classLoader);
+        if (session == null) {
+            ModuleLog.w(TAG, "Session not found, launcher double tap is unavailable");
+            return;
+        }
+        try {
+            Set<XC_MethodHook.Unhook> hooked = HookManifest.hookAllMethods(session, "sendWallpaperCommand", new ProfiledHook("Session.sendWallpaperCommand", false) {
+                @Override
+                protected boolean before(MethodHookParam param) throws Throwable {
+                    // sendWallpaperCommand(IBinder window, String action, int x, int y, int z, Bundle extras, boolean sync)
+                    if (param.args.length < 2) return false;
+                    boolean hello = ACTION_HELLO.equals(param.args[1]);
+                    if (!hello && !ACTION_LOCK.equals(param.args[1])) return false;
+                    int uid = Binder.getCallingUid();
+                    if (!isHomeUid(uid)) return false;
+                    // 自定义命令不转发给壁纸
+                    param.setResult(null);
+                    if (hello) {
+                        if (connectedUid != uid) {
+                            connectedUid = uid;
+                            ModuleLog.i(TAG, "Launcher detector connected from uid {}, wallpaper tap detector disabled", uid);
+                        }
+                        return true;
+                    }
+                    if (!HomeTracker.isHomeResumed()) return false;
+                    LockExecutor.requestLock();
+                    return true;
+                }
+            });
+            if (!hooked.isEmpty()) {
+                ModuleLog.i(TAG, "Lock endpoint ready on Session.sendWallpaperCommand");
+            }
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Session hook failed: {}", t.getMessage());
+        }
+    }
+
+    /**
+     * uid 需要在 Binder 线程上取得，此时调用方身份还没有被清除
+     */
+    private static boolean isHomeUid(int uid) {
+        try {
+            Context context = HomePackages.systemContext();
+            return context != null && HomePackages.isHomeUid(context, uid);
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to verify caller {}: {}", uid, t.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.randompin.xposed;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import de.robv.android.xposed.XposedHelpers;
+
+/**
+ * 锁屏执行器（system_server 进程）
+ * 各锁屏方式的 Binder 代理和 Method 只解析一次并缓存，锁屏时直接调用，正常路径只有一次 Binder 调用。
+ * 尝试顺序按设备上实际成功的方式自适应调整，并保存在 /data/system/randompin/lock-strategy 中跨重启沿用。
+ * Shell 命令（fork 进程）只在所有 Binder 方式都失败时在后台线程执行，不在正常路径上。
+ */
+final class LockExecutor {
+
+    private static final String TAG = "RandomPIN-Lock";
+
+    /** IWindowManager.lockNow(Bundle)：与电源键一致，立即锁屏 */
+    static final int STRATEGY_WINDOW_MANAGER = 0;
+    /** IPowerManager.goToSleep(long, int, int)：关闭屏幕，由 Keyguard 按超时设置锁定 */
+    static final int STRATEGY_POWER_MANAGER = 1;
+    private static final int STRATEGY_COUNT = 2;
+
+    // PowerManager.GO_TO_SLEEP_REASON_POWER_BUTTON
+    private static final int GO_TO_SLEEP_REASON_POWER_BUTTON = 4;
+
+    private static final File ORDER_FILE = new File(HookManifest.SYSTEM_DATA_DIR, "lock-strategy");
+
+    /** 锁屏后的冷却时间，期间的重复请求直接丢弃 */
+    private static final long COOLDOWN = 1000; // 毫秒
+
+    /** 从双击到锁屏调用返回的耗时 */
+    static final LatencyHistogram REQUEST_TO_LOCKED = new LatencyHistogram("double-tap->locked");
+
+    private static final AtomicBoolean PENDING = new AtomicBoolean();
+    private static volatile long requestNanos;
+    private static volatile long lastLockUptime;
+    private static Handler handler;
+
+    private static final Runnable LOCK = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                if (lock()) {
+                    REQUEST_TO_LOCKED.record(System.nanoTime() - requestNanos);
+                    ModuleLog.d(TAG, "{}", REQUEST_TO_LOCKED);
+                }
+            } finally {
+                lastLockUptime = SystemClock.uptimeMillis();
+                PENDING.set(false);
+            }
+        }
+    };
+
+    private static volatile int[] order = readOrder();
+    private static final Binding[] BINDINGS = new Binding[STRATEGY_COUNT];
+    private static volatile boolean bound;
+
+    private LockExecutor() {}
+
+    static String strategyName(int strategy) {
+        switch (strategy) {
+            case STRATEGY_WINDOW_MANAGER: return "IWindowManager.lockNow";
+            case STRATEGY_POWER_MANAGER: return "IPowerManager.goToSleep";
+            default: return "unknown";
+        }
+    }
+
+    /**
+     * 解析并缓存所有锁屏方式，需要在系统服务注册之后调用（重复调用无开销）
+     */
+    static void prepare() {
+        if (bound) return;
+        synchronized (BINDINGS) {
+            if (bound) return;
+            BINDINGS[STRATEGY_WINDOW_MANAGER] = bindWindowManager();
+            BINDINGS[STRATEGY_POWER_MANAGER] = bindPowerManager();
+            // 系统服务尚未注册时下次再试
+            bound = BINDINGS[STRATEGY_WINDOW_MANAGER] != null || BINDINGS[STRATEGY_POWER_MANAGER] != null;
+            ModuleLog.d(TAG, "Lock strategies bound: windowManager={}, powerManager={}",
+                BINDINGS[STRATEGY_WINDOW_MANAGER] != null, BINDINGS[STRATEGY_POWER_MANAGER] != null);
+        }
+    }
+
+    /**
+     * 请求锁屏：投递到专用的锁屏线程后立即返回，可以在输入分发线程上调用
+     * 已有请求在排队或刚锁过屏时直接合并
+     */
+    static void requestLock() {
+        if (SystemClock.uptimeMillis() - lastLockUptime < COOLDOWN) return;
+        if (!PENDING.compareAndSet(false, true)) return;
+        requestNanos = System.nanoTime();
+        handler().post(LOCK);
+    }
+
+    private static synchronized Handler handler() {
+        if (handler == null) {
+            // 显示级优先级，保证锁屏线程不会排在后台任务后面
+            HandlerThread thread = new HandlerThread("RandomPIN-Lock", Process.THREAD_PRIORITY_DISPLAY);
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+        return handler;
+    }
+
+    /**
+     * 在当前线程同步锁屏
+     * @return 是否有某种 Binder 方式成功；全部失败时已在后台尝试 Shell 命令
+     */
+    static boolean lock() {
+        prepare();
+        int[] current = order;
+        for (int i = 0; i < current.length; i++) {
+            int strategy = current[i];
+            if (invoke(strategy)) {
+                if (i != 0) {
+                    promote(strategy);
+                }
+                ModuleLog.d(TAG, "Screen locked via {}", strategyName(strategy));
+                return true;
+            }
+        }
+        ModuleLog.w(TAG, "All binder lock strategies failed, falling back to shell");
+        shellLockAsync();
+        return false;
+    }
+
+    private static boolean invoke(int strategy) {
+        Binding binding = BINDINGS[strategy];
+        if (binding == null) return false;
+        try {
+            if (strategy == STRATEGY_POWER_MANAGER) {
+                binding.method.invoke(binding.target, SystemClock.uptimeMillis(), GO_TO_SLEEP_REASON_POWER_BUTTON, 0);
+            } else {
+                binding.method.invoke(binding.target, binding.args);
+            }
+            return true;
+        } catch (InvocationTargetException e) {
+            ModuleLog.w(TAG, "{} failed: {}", strategyName(strategy), e.getCause());
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "{} failed: {}", strategyName(strategy), t.getMessage());
+        }
+        return false;
+    }
+
+    private static Binding bindWindowManager() {
+        try {
+            Object windowManager = asInterface("android.view.IWindowManager$Stub", getService(Context.WINDOW_SERVICE));
+            if (windowManager == null) return null;
+            // 安卓10+ 为 lockNow(Bundle options)，更早版本为 lockNow()
+            try {
+                Method lockNow = windowManager.getClass().getMethod("lockNow", Bundle.class);
+                return new Binding(windowManager, lockNow, new Object[]{null});
+            } catch (NoSuchMethodException e) {
+                Method lockNow = windowManager.getClass().getMethod("lockNow");
+                return new Binding(windowManager, lockNow, new Object[0]);
+            }
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Cannot bind IWindowManager.lockNow: {}", t.getMessage());
+            return null;
+        }
+    }
+
+    private static Binding bindPowerManager() {
+        try {
+            Object powerManager = asInterface("android.os.IPowerManager$Stub", getService(Context.POWER_SERVICE));
+            if (powerManager == null) return null;
+            Method goToSleep = powerManager.getClass().getMethod("goToSleep", long.class, int.class, int.class);
+            return new Binding(powerManager, goToSleep, null);
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Cannot bind IPowerManager.goToSleep: {}", t.getMessage());
+            return null;
+        }
+    }
+
+    private static Object getService(String name) {
+        Class<?> serviceManager = XposedHelpers.findClass("android.os.ServiceManager", null);
+        return XposedHelpers.callStaticMethod(serviceManager, "getService", name);
+    }
+
+    private static Object asInterface(String stubClassName, Object binder) {
+        if (binder == null) return null;
+        Class<?> stubClass = XposedHelpers.findClass(stubClassName, null);
+        return XposedHelpers.callStaticMethod(stubClass, "asInterface", binder);
+    }
+
+    /**
+     * 把成功的方式移到最前，并在后台写回文件
+     */
+    private static synchronized void promote(int strategy) {
+        int[] current = order;
+        int[] updated = new int[current.length];
+        updated[0] = strategy;
+        int next = 1;
+        for (int s : current) {
+            if (s != strategy && next < updated.length) {
+                updated[next++] = s;
+            }
+        }
+        order = updated;
+        ModuleLog.i(TAG, "Preferring {} from now on", strategyName(strategy));
+        final int preferred = strategy;
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeOrder(preferred);
+            }
+        }, "RandomPIN-LockOrder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 文件只保存首选方式的编号（一个字节），其余按默认顺序
+     */
+    private static int[] readOrder() {
+        int preferred = STRATEGY_WINDOW_MANAGER;
+        FileInputStream in = null;
+        try {
+            if (ORDER_FILE.isFile()) {
+                in = new FileInputStream(ORDER_FILE);
+                int value = in.read();
+                if (value >= 0 && value < STRATEGY_COUNT) {
+                    preferred = value;
+                }
+            }
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to read lock strategy: {}", t.getMessage());
+        } finally {
+            HookManifest.closeQuietly(in);
+        }
+        int[] result = new int[STRATEGY_COUNT];
+        result[0] = preferred;
+        int next = 1;
+        for (int s = 0; s < STRATEGY_COUNT; s++) {
+            if (s != preferred) {
+                result[next++] = s;
+            }
+        }
+        return result;
+    }
+
+    private static void writeOrder(int preferred) {
+        File dir = ORDER_FILE.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            return;
+        }
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(ORDER_FILE);
+            out.write(preferred);
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to write lock strategy: {}", t.getMessage());
+        } finally {
+            HookManifest.closeQuietly(out);
+        }
+    }
+
+    /**
+     * 最后的保底：Shell 命令会 fork 进程，只在后台线程执行
+     */
+    private static void shellLockAsync() {
+        Thread shell = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                String[][] commands = {
+                    {"input", "keyevent", "26"},  // KEYCODE_POWER
+                    {"input", "keyevent", "6"},   // KEYCODE_SLEEP
+                    {"cmd", "power", "sleep"}     // 安卓11+
+                };
+                for (String[] command : commands) {
+                    try {
+                        Runtime.getRuntime().exec(command);
+                        ModuleLog.d(TAG, "Screen locked via shell command {}", command[command.length - 1]);
+                        return;
+                    } catch (Throwable t) {
+                        ModuleLog.w(TAG, "Shell command {} failed: {}", command[command.length - 1], t.getMessage());
+                    }
+                }
+            }
+        }, "RandomPIN-ShellLock");
+        shell.setDaemon(true);
+        shell.start();
+    }
+
+    /**
+     * 预先解析好的 Binder 代理 + 方法
+     */
+    private static final class Binding {
+        final Object target;
+        final Method method;
+        final Object[] args;
+
+        Binding(Object target, Method method, Object[] args) {
+            this.target = target;
+            this.method = method;
+            this.args = args;
+        }
+    }
+}
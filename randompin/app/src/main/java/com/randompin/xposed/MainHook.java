@@ -1,21 +1,18 @@
 package com.randompin.xposed;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Set;
 
 import android.content.Context;
 import android.graphics.Canvas;
 import android.os.Build;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.Button;
 import android.widget.LinearLayout;
 
 import de.robv.android.xposed.IXposedHookLoadPackage;
 import de.robv.android.xposed.XC_MethodHook;
-import de.robv.android.xposed.XposedBridge;
 import de.robv.android.xposed.XposedHelpers;
 import de.robv.android.xposed.callbacks.XC_LoadPackage;
 
@@ -29,12 +26,31 @@ public class MainHook implements IXposedHookLoadPackage {
     private static final String TAG = "RandomPIN";
     private static final String[] DIGITS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
     
+    private final Set<Class<?>> hookedPINViews = new HashSet<>();
+    private boolean symbolsLoaded;
+    
     @Override
-    public void handleLoadPackage(XC_LoadPackage.LoadPackageParam lpparam) throws Throwable {
+    public void handleLoadPackage(final XC_LoadPackage.LoadPackageParam lpparam) throws Throwable {
         // Hook 系统服务处理双击壁纸逻辑 (system_server 进程)
         if (lpparam.packageName.equals("android")) {
-            XposedBridge.log("[" + TAG + "] Hooking system_server for double tap lock");
-            DoubleTapLock.hook(lpparam.classLoader);
+            ModuleLog.i(TAG, "Hooking system_server for double tap lock");
+            HookManifest.open(lpparam);
+            FeatureToggles.load();
+            FeatureToggles.install(FeatureToggles.DOUBLE_TAP, new Runnable() {
+                @Override
+                public void run() {
+                    DoubleTapLock.hook(lpparam.classLoader);
+                }
+            });
+            // 全局指针 Hook 经过每一次触摸，默认关闭，只有桌面未加入作用域时才需要
+            FeatureToggles.install(FeatureToggles.LEGACY_POINTER, new Runnable() {
+                @Override
+                public void run() {
+                    DoubleTapLock.hookPhoneWindowManager(lpparam.classLoader);
+                }
+            });
+            HookManifest.save();
+            FeatureToggles.watch();
             return;
         }
 
@@ -49,16 +65,53 @@ public class MainHook implements IXposedHookLoadPackage {
             return;
         }
 
-        // 只处理 SystemUI 相关的包
+        // 作用域中的其他包都是桌面：在桌面进程内检测双击
         if (!lpparam.packageName.toLowerCase().contains("systemui")) {
+            if (lpparam.isFirstApplication) {
+                ModuleLog.i(TAG, "Hooking launcher {} for double tap lock", lpparam.packageName);
+                HookManifest.open(lpparam);
+                FeatureToggles.load();
+                Diagnostics.hookApplication(lpparam.packageName);
+                FeatureToggles.install(FeatureToggles.DOUBLE_TAP, new Runnable() {
+                    @Override
+                    public void run() {
+                        DoubleTapLock.hookLauncherProcess(lpparam.classLoader);
+                    }
+                });
+                HookManifest.save();
+                FeatureToggles.watch();
+            }
             return;
         }
         
-        int sdk = Build.VERSION.SDK_INT;
-        XposedBridge.log("[" + TAG + "] Hooking SystemUI, SDK=" + sdk + ", package=" + lpparam.packageName);
+        ModuleLog.i(TAG, "Hooking SystemUI, SDK={}, package={}", Build.VERSION.SDK_INT, lpparam.packageName);
+        HookManifest.open(lpparam);
+        FeatureToggles.load();
+        Diagnostics.hookApplication(lpparam.packageName);
+        FeatureToggles.install(FeatureToggles.SHUFFLE, new Runnable() {
+            @Override
+            public void run() {
+                hookSystemUI(lpparam);
+            }
+        });
+        // 记录本次探测结果，下次启动跳过不存在的类和方法
+        HookManifest.save();
+        FeatureToggles.watch();
+    }
+
+    /**
+     * SystemUI 的全部乱序 Hook，关闭后重新打开时会再次调用
+     */
+    private void hookSystemUI(XC_LoadPackage.LoadPackageParam lpparam) {
+        // 重新安装时之前的 Hook 已全部卸载
+        hookedPINViews.clear();
+        if (!symbolsLoaded) {
+            symbolsLoaded = true;
+            KeyguardSymbols.load(lpparam);
+        }
         
         // 根据安卓版本选择不同的Hook方式
-        if (sdk >= 35) {
+        if (Build.VERSION.SDK_INT >= 35) {
             // 安卓15+ (包含安卓 16, SDK 36) 使用新的Hook方式
             hookAndroid15Plus(lpparam);
             // 作为 Nubia 等深度定制安卓 16 系统的兜底，依然挂载传统的 PIN 视图
@@ -66,8 +119,8 @@ public class MainHook implements IXposedHookLoadPackage {
         } else {
             // 通用Hook (安卓10-14)
             hookKeyguardPINView(lpparam);
-            hookLockPatternView(lpparam);
-            hookNumPadKey(lpparam);
+            // 每次弹出层显示都重新洗牌
+            Android15Hooks.hookKeyguardBouncer(lpparam.classLoader);
         }
     }
     
@@ -75,7 +128,7 @@ public class MainHook implements IXposedHookLoadPackage {
      * 安卓15+ 专用Hook
      */
     private void hookAndroid15Plus(XC_LoadPackage.LoadPackageParam lpparam) {
-        XposedBridge.log("[" + TAG + "] Applying Android 15+ hooks");
+        ModuleLog.i(TAG, "Applying Android 15+ hooks");
         Android15Hooks.hook(lpparam.classLoader);
     }
     
@@ -89,231 +142,84 @@ public class MainHook implements IXposedHookLoadPackage {
         hookGenericPINView(lpparam, "com.android.keyguard.KeyguardSimPinView");
         // 挂载 SIM PUK 码视图
         hookGenericPINView(lpparam, "com.android.keyguard.KeyguardSimPukView");
+        // 挂载 dex 扫描发现的厂商 PIN 视图（不继承上面任何一个类的）
+        hookVendorPINViews(lpparam);
     }
 
-    private void hookGenericPINView(XC_LoadPackage.LoadPackageParam lpparam, String className) {
-        try {
-            Class<?> keyguardPINViewClass = XposedHelpers.findClass(
-                className,
-                lpparam.classLoader
-            );
-            
-            XposedHelpers.findAndHookMethod(
-                keyguardPINViewClass,
-                "onFinishInflate",
-                new XC_MethodHook() {
-                    @Override
-                    protected void afterHookedMethod(MethodHookParam param) throws Throwable {
-                        ViewGroup view = (ViewGroup) param.thisObject;
-                        randomizePINButtons(view);
-                    }
-                }
-            );
-            
-            XposedBridge.log("[" + TAG + "] Successfully hooked " + className);
-            
-        } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] Failed to hook " + className + ": " + t.getMessage());
-        }
-    }
-    
     /**
-     * Hook LockPatternView (部分设备)
+     * 厂商 ROM 中改名或另起炉灶的 PIN 视图，父类已被挂载的跳过，避免同一次 inflate 洗牌两次
      */
-    private void hookLockPatternView(XC_LoadPackage.LoadPackageParam lpparam) {
-        try {
-            Class<?> lockPatternViewClass = XposedHelpers.findClass(
-                "com.android.internal.widget.LockPatternView",
-                lpparam.classLoader
-            );
-            
-            XposedBridge.log("[" + TAG + "] Found LockPatternView class");
-            
-        } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] LockPatternView not found (expected on most devices)");
+    private void hookVendorPINViews(XC_LoadPackage.LoadPackageParam lpparam) {
+        KeyguardSymbols symbols = KeyguardSymbols.current;
+        if (symbols == null) {
+            return;
+        }
+        for (String className : symbols.pinViewClasses) {
+            Class<?> viewClass = HookManifest.findClass(className, lpparam.classLoader);
+            if (viewClass == null || hookedPINViews.contains(viewClass) || hasHookedAncestor(viewClass)) {
+                continue;
+            }
+            hookGenericPINView(lpparam, className);
         }
     }
-    
-    /**
-     * Hook NumPadKey (安卓12+)
-     */
-    private void hookNumPadKey(XC_LoadPackage.LoadPackageParam lpparam) {
-        try {
-            // 安卓12+ 使用NumPadKey
-            Class<?> numPadKeyClass = XposedHelpers.findClass(
-                "com.android.keyguard.NumPadKey",
-                lpparam.classLoader
-            );
-            
-            XposedHelpers.findAndHookMethod(
-                numPadKeyClass,
-                "onFinishInflate",
-                new XC_MethodHook() {
-                    @Override
-                    protected void afterHookedMethod(MethodHookParam param) throws Throwable {
-                        // NumPadKey已加载，父容器会在之后处理
-                    }
-                }
-            );
-            
-            XposedBridge.log("[" + TAG + "] Successfully hooked NumPadKey");
-            
-        } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] Failed to hook NumPadKey: " + t.getMessage());
+
+    private boolean hasHookedAncestor(Class<?> clazz) {
+        for (Class<?> c = clazz.getSuperclass(); c != null; c = c.getSuperclass()) {
+            if (hookedPINViews.contains(c)) {
+                return true;
+            }
         }
+        return false;
     }
-    
-    /**
-     * 随机化PIN按钮顺序
-     */
-    private void randomizePINButtons(ViewGroup container) {
+
+    private void hookGenericPINView(XC_LoadPackage.LoadPackageParam lpparam, String className) {
         try {
-            // 查找数字按钮容器
-            ViewGroup pinContainer = findPINContainer(container);
-            
-            if (pinContainer == null) {
-                XposedBridge.log("[" + TAG + "] PIN container not found");
+            Class<?> keyguardPINViewClass = HookManifest.findClass(className, lpparam.classLoader);
+            if (keyguardPINViewClass == null) {
+                ModuleLog.d(TAG, "{} not present, skipped", className);
                 return;
             }
             
-            // 收集所有数字按钮以及它们的原始空间属性
-            List<View> digitButtons = new ArrayList<>();
-            List<View> otherButtons = new ArrayList<>();
-            
-            List<Integer> originalIds = new ArrayList<>();
-            List<ViewGroup.LayoutParams> originalLayoutParams = new ArrayList<>();
-            
-            for (int i = 0; i < pinContainer.getChildCount(); i++) {
-                View child = pinContainer.getChildAt(i);
-                
-                if (isDigitButton(child)) {
-                    digitButtons.add(child);
-                    originalIds.add(child.getId());
-                    originalLayoutParams.add(child.getLayoutParams());
-                } else {
-                    otherButtons.add(child);
+            XC_MethodHook.Unhook unhook = HookManifest.findAndHookMethod(
+                keyguardPINViewClass,
+                "onFinishInflate",
+                // 同 KeyguardSecurityContainer：没有数字键盘不代表 Hook 无用
+                new ProfiledHook(keyguardPINViewClass.getSimpleName() + ".onFinishInflate", false) {
+                    @Override
+                    protected boolean after(MethodHookParam param) throws Throwable {
+                        ViewGroup view = (ViewGroup) param.thisObject;
+                        return randomizePINButtons(view);
+                    }
                 }
-            }
-            
-            if (digitButtons.isEmpty()) {
-                XposedBridge.log("[" + TAG + "] No digit buttons found");
+            );
+            if (unhook == null) {
+                ModuleLog.d(TAG, "{}.onFinishInflate not present, skipped", className);
                 return;
             }
             
-            // 随机打乱数字按钮引用顺序
-            Collections.shuffle(digitButtons, new Random());
-            
-            // 恢复属性到洗牌后的 View 上，确保 ConstraintLayout 能正常约束它们
-            for (int i = 0; i < digitButtons.size(); i++) {
-                View shuffledBtn = digitButtons.get(i);
-                shuffledBtn.setId(originalIds.get(i));
-                shuffledBtn.setLayoutParams(originalLayoutParams.get(i));
-            }
-            
-            // 收集原始整个顺序
-            List<View> originalChildren = new ArrayList<>();
-            for (int i = 0; i < pinContainer.getChildCount(); i++) {
-                originalChildren.add(pinContainer.getChildAt(i));
-            }
-            
-            // 重新重组试图
-            pinContainer.removeAllViews();
-            
-            int digitIndex = 0;
-            for (View original : originalChildren) {
-                if (isDigitButton(original) && digitIndex < digitButtons.size()) {
-                    pinContainer.addView(digitButtons.get(digitIndex));
-                    digitIndex++;
-                } else {
-                    pinContainer.addView(original);
-                }
-            }
-            
-            XposedBridge.log("[" + TAG + "] PIN buttons randomized successfully, count=" + digitButtons.size());
+            hookedPINViews.add(keyguardPINViewClass);
+            ModuleLog.i(TAG, "Successfully hooked {}", className);
             
         } catch (Throwable t) {
-            XposedBridge.log("[" + TAG + "] Error randomizing PIN buttons: " + t.getMessage());
-        }
-    }
-    
-    /**
-     * 查找PIN码容器
-     */
-    private ViewGroup findPINContainer(ViewGroup parent) {
-        // 尝试通过ID查找
-        int containerId = parent.getResources().getIdentifier(
-            "key_enter", "id", "com.android.systemui"
-        );
-        
-        if (containerId != 0) {
-            View container = parent.findViewById(containerId);
-            if (container instanceof ViewGroup) {
-                return (ViewGroup) container.getParent() instanceof ViewGroup 
-                    ? (ViewGroup) container.getParent() 
-                    : (ViewGroup) container;
-            }
-        }
-        
-        // 递归查找包含多个按钮的容器
-        for (int i = 0; i < parent.getChildCount(); i++) {
-            View child = parent.getChildAt(i);
-            
-            if (child instanceof ViewGroup) {
-                ViewGroup childGroup = (ViewGroup) child;
-                
-                // 检查是否包含10个以上按钮（数字键盘）
-                int buttonCount = countDigitButtons(childGroup);
-                if (buttonCount >= 10) {
-                    return childGroup;
-                }
-                
-                // 递归查找
-                ViewGroup result = findPINContainer(childGroup);
-                if (result != null) {
-                    return result;
-                }
-            }
+            ModuleLog.w(TAG, "Failed to hook {}: {}", className, t.getMessage());
         }
-        
-        return null;
     }
     
     /**
-     * 计算容器中的数字按钮数量
-     */
-    private int countDigitButtons(ViewGroup container) {
-        int count = 0;
-        for (int i = 0; i < container.getChildCount(); i++) {
-            View child = container.getChildAt(i);
-            if (isDigitButton(child)) {
-                count++;
-            }
-        }
-        return count;
-    }
-    
-    /**
-     * 判断是否为数字按钮
+     * 随机化PIN按钮顺序
+     * @return 是否找到了数字键盘
      */
-    private boolean isDigitButton(View view) {
-        if (view instanceof Button) {
-            Button button = (Button) view;
-            String text = button.getText().toString();
-            return text.matches("[0-9]");
-        }
-        
-        // 检查是否有digit属性或tag
-        Object digit = view.getTag();
-        if (digit instanceof Integer && (Integer) digit >= 0 && (Integer) digit <= 9) {
-            return true;
+    private boolean randomizePINButtons(ViewGroup container) {
+        // 单次遍历找出该视图下的所有数字键盘容器
+        List<Keypad> keypads = KeypadRegistry.locate(container);
+        if (keypads.isEmpty()) {
+            ModuleLog.d(TAG, "PIN container not found");
+            return false;
         }
         
-        // 检查content description
-        CharSequence contentDesc = view.getContentDescription();
-        if (contentDesc != null && contentDesc.toString().matches("[0-9]")) {
-            return true;
+        for (Keypad keypad : keypads) {
+            KeypadShuffler.shuffle(keypad);
         }
-        
-        return false;
+        return true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.randompin.xposed;
+
+import de.robv.android.xposed.XposedHelpers;
+
+/**
+ * 模块运行参数，在被 Hook 进程加载时读取一次
+ * 目前通过系统属性配置，例如: adb shell setprop persist.randompin.legacy_ready 1
+ * 用户可见的功能开关在设置界面中，见 FeatureToggles
+ */
+final class ModuleConfig {
+
+    /**
+     * 使用旧的就绪判定（150ms / 500ms 定时器 + 两次布局稳定），仅用于和预绘制方案对比耗时
+     */
+    static final boolean LEGACY_READINESS = getBoolean("persist.randompin.legacy_ready", false);
+
+    /**
+     * 洗牌策略：remap（默认，只改写按键数字和标签）或 hard（重组视图层级）
+     * 设置界面保存过开关后以设置为准（FeatureToggles），这里只是默认值
+     */
+    static final int SHUFFLE_STRATEGY = "hard".equals(getString("persist.randompin.strategy", "remap"))
+        ? KeypadShuffler.STRATEGY_HARD
+        : KeypadShuffler.STRATEGY_LABEL_REMAP;
+
+    /**
+     * 日志级别：verbose / debug / info / warn / error，默认调试包输出 debug，正式包只输出 info 及以上
+     */
+    static final int LOG_LEVEL = parseLogLevel(getString("persist.randompin.log_level", ""));
+
+    /**
+     * 统计输入 Hook 的耗时和事件分发延迟（默认关闭，开启后每次按下多两次原子操作）
+     */
+    static final boolean TRACE_INPUT = getBoolean("persist.randompin.trace_input", false);
+
+    /**
+     * 是否额外挂载 system_server 的全局指针事件 Hook（旧方案，默认关闭）
+     * 双击检测已在桌面进程内完成，只有桌面未加入作用域时才需要开启
+     * 设置界面保存过开关后以设置为准（FeatureToggles），这里只是默认值
+     */
+    static final boolean LEGACY_POINTER_HOOK = getBoolean("persist.randompin.legacy_pointer", false);
+
+    /**
+     * 可移除的 Hook 连续这么多次调用都没有生效时自动卸载，0 表示从不卸载
+     */
+    static final int DEAD_HOOK_CALLS = getInt("persist.randompin.dead_hook_calls", 200);
+
+    /**
+     * 弹出层显示期间记录每帧耗时和丢帧数（默认关闭）
+     */
+    static final boolean TRACE_FRAMES = getBoolean("persist.randompin.trace_frames", false);
+
+    private ModuleConfig() {}
+
+    private static int parseLogLevel(String value) {
+        switch (value) {
+            case "verbose": return ModuleLog.VERBOSE;
+            case "debug": return ModuleLog.DEBUG;
+            case "info": return ModuleLog.INFO;
+            case "warn": return ModuleLog.WARN;
+            case "error": return ModuleLog.ERROR;
+            default: return BuildConfig.DEBUG ? ModuleLog.DEBUG : ModuleLog.INFO;
+        }
+    }
+
+    private static String getString(String key, String def) {
+        try {
+            Class<?> systemProperties = XposedHelpers.findClass("android.os.SystemProperties", null);
+            return (String) XposedHelpers.callStaticMethod(systemProperties, "get", key, def);
+        } catch (Throwable t) {
+            return def;
+        }
+    }
+
+    private static boolean getBoolean(String key, boolean def) {
+        try {
+            Class<?> systemProperties = XposedHelpers.findClass("android.os.SystemProperties", null);
+            return (Boolean) XposedHelpers.callStaticMethod(systemProperties, "getBoolean", key, def);
+        } catch (Throwable t) {
+            return def;
+        }
+    }
+
+    private static int getInt(String key, int def) {
+        try {
+            Class<?> systemProperties = XposedHelpers.findClass("android.os.SystemProperties", null);
+            return (Integer) XposedHelpers.callStaticMethod(systemProperties, "getInt", key, def);
+        } catch (Throwable t) {
+            return def;
+        }
+    }
+}
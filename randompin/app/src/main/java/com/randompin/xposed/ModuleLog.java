@@ -0,0 +1,266 @@
+package com.randompin.xposed;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import de.robv.android.xposed.XposedBridge;
+
+/**
+ * 模块日志：分级 + 参数化消息 + 无锁环形缓冲区
+ * 调用线程（输入分发、UI 线程）只做一次级别判断和一次入队，
+ * 字符串拼接和 XposedBridge.log 的 I/O 都在后台线程完成。
+ * 消息模板用 "{}" 作为占位符，例如: ModuleLog.d(TAG, "Found {} keys in {}", count, container)
+ *
+ * 基本类型参数会在调用处装箱，早于级别判断：单个整数参数有 long 重载，装箱推迟到级别判断之后；
+ * 热路径上带多个基本类型参数的调用用 isLoggable 包一层。
+ *
+ * 丢弃策略：缓冲区满时保留最新的条目。生产者超过消费者一整圈后覆盖最旧的槽位，
+ * 后台线程发现序号跳跃时跳过丢失的部分并计入 droppedCount；
+ * 每个槽位上的序号只增不减，慢的生产者不会用旧条目覆盖已经写入的新条目（直接放弃自己的条目）。
+ */
+final class ModuleLog {
+
+    // 与 android.util.Log 的级别数值一致
+    static final int VERBOSE = 2;
+    static final int DEBUG = 3;
+    static final int INFO = 4;
+    static final int WARN = 5;
+    static final int ERROR = 6;
+
+    /**
+     * 当前输出级别，低于该级别的调用只有一次分支判断
+     */
+    static final int LEVEL = ModuleConfig.LOG_LEVEL;
+
+    private static final int CAPACITY = 256; // 必须是 2 的幂
+    private static final int MASK = CAPACITY - 1;
+
+    private static final AtomicReferenceArray<Record> SLOTS = new AtomicReferenceArray<>(CAPACITY);
+    private static final AtomicLong WRITE_SEQUENCE = new AtomicLong();
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    private static volatile boolean drainerParked;
+    private static final Thread DRAINER = new Thread(new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    }, "RandomPIN-Log");
+
+    static {
+        DRAINER.setDaemon(true);
+        DRAINER.setPriority(Thread.MIN_PRIORITY);
+        DRAINER.start();
+    }
+
+    private ModuleLog() {}
+
+    static boolean isLoggable(int level) {
+        return level >= LEVEL;
+    }
+
+    static void d(String tag, String msg) {
+        if (DEBUG < LEVEL) return;
+        enqueue(DEBUG, tag, msg, null, null, null, 0);
+    }
+
+    static void d(String tag, String msg, Object arg1) {
+        if (DEBUG < LEVEL) return;
+        enqueue(DEBUG, tag, msg, arg1, null, null, 1);
+    }
+
+    static void d(String tag, String msg, long arg1) {
+        if (DEBUG < LEVEL) return;
+        enqueue(DEBUG, tag, msg, arg1, null, null, 1);
+    }
+
+    static void d(String tag, String msg, Object arg1, Object arg2) {
+        if (DEBUG < LEVEL) return;
+        enqueue(DEBUG, tag, msg, arg1, arg2, null, 2);
+    }
+
+    static void d(String tag, String msg, Object arg1, Object arg2, Object arg3) {
+        if (DEBUG < LEVEL) return;
+        enqueue(DEBUG, tag, msg, arg1, arg2, arg3, 3);
+    }
+
+    static void i(String tag, String msg) {
+        if (INFO < LEVEL) return;
+        enqueue(INFO, tag, msg, null, null, null, 0);
+    }
+
+    static void i(String tag, String msg, Object arg1) {
+        if (INFO < LEVEL) return;
+        enqueue(INFO, tag, msg, arg1, null, null, 1);
+    }
+
+    static void i(String tag, String msg, long arg1) {
+        if (INFO < LEVEL) return;
+        enqueue(INFO, tag, msg, arg1, null, null, 1);
+    }
+
+    static void i(String tag, String msg, Object arg1, Object arg2) {
+        if (INFO < LEVEL) return;
+        enqueue(INFO, tag, msg, arg1, arg2, null, 2);
+    }
+
+    static void i(String tag, String msg, Object arg1, Object arg2, Object arg3) {
+        if (INFO < LEVEL) return;
+        enqueue(INFO, tag, msg, arg1, arg2, arg3, 3);
+    }
+
+    static void w(String tag, String msg) {
+        if (WARN < LEVEL) return;
+        enqueue(WARN, tag, msg, null, null, null, 0);
+    }
+
+    static void w(String tag, String msg, Object arg1) {
+        if (WARN < LEVEL) return;
+        enqueue(WARN, tag, msg, arg1, null, null, 1);
+    }
+
+    static void w(String tag, String msg, long arg1) {
+        if (WARN < LEVEL) return;
+        enqueue(WARN, tag, msg, arg1, null, null, 1);
+    }
+
+    static void w(String tag, String msg, Object arg1, Object arg2) {
+        if (WARN < LEVEL) return;
+        enqueue(WARN, tag, msg, arg1, arg2, null, 2);
+    }
+
+    static void e(String tag, String msg) {
+        if (ERROR < LEVEL) return;
+        enqueue(ERROR, tag, msg, null, null, null, 0);
+    }
+
+    static void e(String tag, String msg, Object arg1) {
+        if (ERROR < LEVEL) return;
+        enqueue(ERROR, tag, msg, arg1, null, null, 1);
+    }
+
+    static void e(String tag, String msg, Object arg1, Object arg2) {
+        if (ERROR < LEVEL) return;
+        enqueue(ERROR, tag, msg, arg1, arg2, null, 2);
+    }
+
+    /**
+     * 因缓冲区写满而被覆盖的日志条数
+     */
+    static long droppedCount() {
+        return DROPPED.get();
+    }
+
+    /**
+     * 写入环形缓冲区：一次 getAndIncrement 领取序号，一次 CAS 发布，不加锁
+     * 生产者追上消费者时直接覆盖最旧的条目，由后台线程统计丢弃数；
+     * 槽位已被更新的序号占用（本线程在领取序号和发布之间被整圈超过）时放弃本条，
+     * 后台线程跳过这一段时会把它计入丢弃数
+     */
+    private static void enqueue(int level, String tag, String msg, Object arg1, Object arg2, Object arg3, int argCount) {
+        long sequence = WRITE_SEQUENCE.getAndIncrement();
+        int slot = (int) (sequence & MASK);
+        Record record = new Record(sequence, level, tag, msg, arg1, arg2, arg3, argCount);
+        while (true) {
+            Record current = SLOTS.get(slot);
+            if (current != null && current.sequence > sequence) {
+                return;
+            }
+            if (SLOTS.compareAndSet(slot, current, record)) {
+                break;
+            }
+        }
+        if (drainerParked) {
+            LockSupport.unpark(DRAINER);
+        }
+    }
+
+    /**
+     * 后台线程：按序号顺序取出条目，格式化后写入 XposedBridge.log
+     */
+    private static void drain() {
+        long readSequence = 0;
+        StringBuilder builder = new StringBuilder(128);
+        while (true) {
+            int slot = (int) (readSequence & MASK);
+            Record record = SLOTS.get(slot);
+            if (record == null || record.sequence < readSequence) {
+                // 还没有新条目：先声明要休眠，再检查一次，避免与生产者的唤醒错过
+                drainerParked = true;
+                record = SLOTS.get(slot);
+                if (record == null || record.sequence < readSequence) {
+                    LockSupport.park();
+                }
+                drainerParked = false;
+                continue;
+            }
+            if (record.sequence > readSequence) {
+                // 被生产者整圈覆盖，跳过丢失的部分
+                long lost = record.sequence - readSequence;
+                DROPPED.addAndGet(lost);
+                builder.setLength(0);
+                builder.append("[RandomPIN-Log] ").append(lost).append(" log records dropped");
+                write(builder.toString());
+                readSequence = record.sequence;
+            }
+            SLOTS.compareAndSet(slot, record, null);
+            readSequence++;
+
+            builder.setLength(0);
+            record.format(builder);
+            write(builder.toString());
+        }
+    }
+
+    private static void write(String line) {
+        try {
+            XposedBridge.log(line);
+        } catch (Throwable ignored) {}
+    }
+
+    /**
+     * 一条待输出的日志，参数在后台线程才转换成字符串
+     */
+    private static final class Record {
+        final long sequence;
+        final int level;
+        final String tag;
+        final String msg;
+        final Object arg1;
+        final Object arg2;
+        final Object arg3;
+        final int argCount;
+
+        Record(long sequence, int level, String tag, String msg, Object arg1, Object arg2, Object arg3, int argCount) {
+            this.sequence = sequence;
+            this.level = level;
+            this.tag = tag;
+            this.msg = msg;
+            this.arg1 = arg1;
+            this.arg2 = arg2;
+            this.arg3 = arg3;
+            this.argCount = argCount;
+        }
+
+        void format(StringBuilder out) {
+            out.append('[').append(tag).append("] ");
+            if (level >= WARN) {
+                out.append(level == WARN ? "W: " : "E: ");
+            }
+            int start = 0;
+            for (int i = 0; i < argCount; i++) {
+                int placeholder = msg.indexOf("{}", start);
+                if (placeholder < 0) break;
+                out.append(msg, start, placeholder);
+                try {
+                    out.append(i == 0 ? arg1 : i == 1 ? arg2 : arg3);
+                } catch (Throwable t) {
+                    out.append("<toString failed>");
+                }
+                start = placeholder + 2;
+            }
+            out.append(msg, start, msg.length());
+        }
+    }
+}
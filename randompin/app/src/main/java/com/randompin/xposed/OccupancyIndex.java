@@ -0,0 +1,196 @@
+package com.randompin.xposed;
+
+import android.appwidget.AppWidgetHostView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * 桌面空白区域命中索引
+ * 把根视图划分成固定大小的格子，用位图记录哪些格子被图标、Dock、小部件、搜索栏等可交互元素占用。
+ * 布局（OnGlobalLayoutListener）和滚动（翻页）只把索引标记为过期，合并成一次延迟重建，
+ * 每秒刷新的小部件、角标、文件夹动画不会让每次布局都遍历整棵视图树；
+ * 触摸事件中的判断只是一次位运算，从不在触摸路径上重建。
+ * 每个窗口只有一个索引，挂在窗口的根视图（DecorView）上，窗口内任何视图都通过屏幕坐标查询。
+ * 图标在 Launcher 中嵌套在 Workspace / CellLayout / ShortcutAndWidgetContainer 里，
+ * 因此遍历整棵视图树，而不是只看根视图的直接子 View。
+ */
+final class OccupancyIndex implements ViewTreeObserver.OnGlobalLayoutListener,
+        ViewTreeObserver.OnScrollChangedListener, Runnable {
+
+    // View tag key 要求高字节 >= 0x02
+    private static final int TAG_INDEX = 0x4F434355; // "OCCU"
+
+    /** 格子边长（像素），图标一般在 100px 以上，16px 的误差可以忽略 */
+    private static final int CELL = 16;
+    /** 布局或滚动后延迟重建，翻页动画、连续的布局期间只重建一次 */
+    private static final long REBUILD_DELAY = 100; // 毫秒
+
+    /** Launcher 的页面容器：本身可点击 / 可长按，但只有其中的图标和小部件算占用 */
+    private static final String[] LAUNCHER_CONTAINERS = {
+        "Workspace", "CellLayout", "ShortcutAndWidgetContainer", "PagedView"
+    };
+
+    private final View root;
+    private final int[] location = new int[2];
+    private final int[] rootLocation = new int[2];
+    private final ArrayList<View> stack = new ArrayList<>();
+
+    private long[] bits = new long[0];
+    private int columns;
+    private int rows;
+    private boolean dirty = true;
+    private boolean rebuildPosted;
+
+    private OccupancyIndex(View root) {
+        this.root = root;
+    }
+
+    /**
+     * 取得（必要时创建）视图所在窗口的索引，只能在 UI 线程调用
+     */
+    static OccupancyIndex forWindow(View view) {
+        View root = view.getRootView();
+        Object tag = root.getTag(TAG_INDEX);
+        if (tag instanceof OccupancyIndex) {
+            return (OccupancyIndex) tag;
+        }
+        OccupancyIndex index = new OccupancyIndex(root);
+        root.setTag(TAG_INDEX, index);
+        ViewTreeObserver observer = root.getViewTreeObserver();
+        observer.addOnGlobalLayoutListener(index);
+        observer.addOnScrollChangedListener(index);
+        // 首次创建时建一次，之后由布局和滚动回调维护
+        index.rebuild();
+        return index;
+    }
+
+    /**
+     * 坐标（相对根视图）是否落在空白壁纸上
+     * 布局或滚动后尚未重建时一律视为非空白
+     */
+    boolean isEmpty(float x, float y) {
+        if (dirty) return false;
+        if (x < 0 || y < 0) return false;
+        int column = (int) x / CELL;
+        int row = (int) y / CELL;
+        if (column >= columns || row >= rows) return false;
+        int cell = row * columns + column;
+        return (bits[cell >>> 6] & (1L << cell)) == 0;
+    }
+
+    /**
+     * 屏幕坐标版本，用于触摸事件坐标不是相对根视图的场景（如 DragLayer 的 getX / getY）
+     */
+    boolean isEmptyOnScreen(float rawX, float rawY) {
+        root.getLocationOnScreen(location);
+        return isEmpty(rawX - location[0], rawY - location[1]);
+    }
+
+    @Override
+    public void onGlobalLayout() {
+        invalidate();
+    }
+
+    @Override
+    public void onScrollChanged() {
+        invalidate();
+    }
+
+    private void invalidate() {
+        dirty = true;
+        if (!rebuildPosted) {
+            rebuildPosted = true;
+            root.postDelayed(this, REBUILD_DELAY);
+        }
+    }
+
+    @Override
+    public void run() {
+        rebuildPosted = false;
+        if (dirty) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        dirty = false;
+        int width = root.getWidth();
+        int height = root.getHeight();
+        columns = (width + CELL - 1) / CELL;
+        rows = (height + CELL - 1) / CELL;
+        int words = (columns * rows + 63) >>> 6;
+        if (bits.length != words) {
+            bits = new long[words];
+        } else {
+            Arrays.fill(bits, 0);
+        }
+        if (words == 0 || !(root instanceof ViewGroup)) {
+            return;
+        }
+
+        root.getLocationInWindow(rootLocation);
+        long halfArea = (long) width * height / 2;
+        stack.clear();
+        pushChildren((ViewGroup) root);
+        while (!stack.isEmpty()) {
+            View view = stack.remove(stack.size() - 1);
+            if (view.getVisibility() != View.VISIBLE) continue;
+            if (isOccupying(view, halfArea)) {
+                mark(view);
+            } else if (view instanceof ViewGroup) {
+                pushChildren((ViewGroup) view);
+            }
+        }
+        stack.clear();
+    }
+
+    private void pushChildren(ViewGroup group) {
+        for (int i = group.getChildCount() - 1; i >= 0; i--) {
+            stack.add(group.getChildAt(i));
+        }
+    }
+
+    /**
+     * 小部件整体视为占用（时钟、天气、相册等小部件的内容子视图往往不可点击）；
+     * 可点击 / 可长按的元素（图标、文件夹、Dock 图标、搜索栏）视为占用；
+     * 只有面积超过根视图一半的 Launcher 页面容器（Workspace、CellLayout 等）继续向下遍历
+     */
+    private static boolean isOccupying(View view, long halfArea) {
+        if (view instanceof AppWidgetHostView) {
+            return true;
+        }
+        if (!view.isClickable() && !view.isLongClickable()) {
+            return false;
+        }
+        return !isLauncherContainer(view.getClass()) || (long) view.getWidth() * view.getHeight() < halfArea;
+    }
+
+    private static boolean isLauncherContainer(Class<?> clazz) {
+        for (Class<?> c = clazz; c != null && c != ViewGroup.class; c = c.getSuperclass()) {
+            String name = c.getSimpleName();
+            for (String container : LAUNCHER_CONTAINERS) {
+                if (name.equals(container)) return true;
+            }
+        }
+        return false;
+    }
+
+    private void mark(View view) {
+        view.getLocationInWindow(location);
+        int left = Math.max(0, (location[0] - rootLocation[0]) / CELL);
+        int top = Math.max(0, (location[1] - rootLocation[1]) / CELL);
+        int right = Math.min(columns - 1, (location[0] - rootLocation[0] + view.getWidth() - 1) / CELL);
+        int bottom = Math.min(rows - 1, (location[1] - rootLocation[1] + view.getHeight() - 1) / CELL);
+        for (int row = top; row <= bottom; row++) {
+            int base = row * columns;
+            for (int column = left; column <= right; column++) {
+                int cell = base + column;
+                bits[cell >>> 6] |= 1L << cell;
+            }
+        }
+    }
+}
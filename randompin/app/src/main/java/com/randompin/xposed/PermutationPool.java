@@ -0,0 +1,129 @@
+package com.randompin.xposed;
+
+import com.randompin.core.Shuffles;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 预生成的 0-9 随机排列池
+ * 排列在后台低优先级线程中用 SecureRandom 生成，主线程取用时只做一次出队，
+ * 亮屏解锁路径上通常不会等待熵源，也不会有 Collections.shuffle 的装箱和分配。
+ * 息屏时补满，池中余量过低时也会自动补充。
+ *
+ * 所有排列（包括池空时在调用线程现场生成的）都来自同一个 SecureRandom，不会退回到 java.util.Random：
+ * 类加载时即在补充线程上播种；播种尚未完成时取排列的线程会阻塞等待这一次。
+ * 补充任务在同一个按需启动的工作线程上执行，空闲一段时间后线程退出。
+ */
+final class PermutationPool {
+
+    private static final int CAPACITY = 8;
+    private static final int LOW_WATER = 2;
+
+    private static final ArrayBlockingQueue<int[]> POOL = new ArrayBlockingQueue<>(CAPACITY);
+    private static final AtomicBoolean REFILLING = new AtomicBoolean();
+
+    private static final ExecutorService WORKER;
+
+    static {
+        ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "RandomPIN-Permutations");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        worker.allowCoreThreadTimeOut(true);
+        WORKER = worker;
+    }
+
+    /**
+     * 延迟初始化的 SecureRandom：首次访问 RANDOM 的线程完成播种，
+     * 其他线程由类初始化锁阻塞到播种完成
+     */
+    private static final class Seeded {
+        static final SecureRandom RANDOM = seed();
+
+        private static SecureRandom seed() {
+            SecureRandom random = new SecureRandom();
+            random.nextInt(); // 触发播种
+            return random;
+        }
+    }
+
+    private static final Runnable REFILL = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                SecureRandom random = Seeded.RANDOM;
+                while (POOL.remainingCapacity() > 0) {
+                    if (!POOL.offer(generate(random))) {
+                        break;
+                    }
+                }
+            } finally {
+                REFILLING.set(false);
+            }
+        }
+    };
+
+    static {
+        // 类加载时就在工作线程上播种并补满，首次洗牌一般无需等待
+        refillAsync();
+    }
+
+    private PermutationPool() {}
+
+    /**
+     * 已播种的 SecureRandom，播种尚未完成时阻塞等待
+     */
+    static Random random() {
+        return Seeded.RANDOM;
+    }
+
+    /**
+     * 取出一个新的排列；池空时在调用线程用同一个 SecureRandom 生成
+     */
+    static int[] take() {
+        int[] perm = POOL.poll();
+        if (POOL.size() <= LOW_WATER) {
+            refillAsync();
+        }
+        if (perm != null) {
+            return perm;
+        }
+        return generate(Seeded.RANDOM);
+    }
+
+    /**
+     * 在工作线程补满排列池，已有补充任务在排队或执行时直接返回
+     */
+    static void refillAsync() {
+        if (!REFILLING.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            WORKER.execute(REFILL);
+        } catch (RuntimeException e) {
+            REFILLING.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Fisher-Yates 生成 0-9 的随机排列
+     */
+    private static int[] generate(Random random) {
+        return Shuffles.randomPermutation(10, random);
+    }
+}
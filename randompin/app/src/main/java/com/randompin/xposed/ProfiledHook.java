@@ -0,0 +1,168 @@
+package com.randompin.xposed;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.robv.android.xposed.XC_MethodHook;
+
+/**
+ * 带耗时统计的 Hook 回调
+ * 模块安装的所有 Hook 都继承此类，记录调用次数、生效次数和回调耗时（无锁计数器 + 直方图）。
+ * 子类在 before / after 中返回本次调用是否真正做了事情。
+ * 标记为可移除的 Hook 如果连续 ModuleConfig.DEAD_HOOK_CALLS 次调用都没有生效，
+ * 说明当前 ROM 上它没有用处，通过 Unhook 句柄把自己卸载，之后不再有任何开销。
+ */
+abstract class ProfiledHook extends XC_MethodHook {
+
+    private static final String TAG = "RandomPIN-Profile";
+
+    /** 本进程安装的所有 Hook，用于导出统计 */
+    private static final List<ProfiledHook> ALL = new CopyOnWriteArrayList<>();
+
+    final String name;
+    final LatencyHistogram time;
+    /** 所属功能（FeatureToggles），功能关闭时一起卸载 */
+    final int feature;
+    private final boolean removable;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong effective = new AtomicLong();
+    private final AtomicBoolean removed = new AtomicBoolean();
+    private final List<Unhook> unhooks = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param removable 是否允许在长期无效时自动卸载；
+     *                  输入、前台跟踪这类"大部分调用本来就不需要做事"的 Hook 应传 false；
+     *                  结果取决于用户设置的 Hook（如洗牌入口在图案/密码锁屏上找不到数字键盘）同样应传 false
+     */
+    ProfiledHook(String name, boolean removable) {
+        this.name = name;
+        this.removable = removable;
+        this.time = new LatencyHistogram(name);
+        this.feature = FeatureToggles.installing();
+        ALL.add(this);
+    }
+
+    static List<ProfiledHook> all() {
+        return ALL;
+    }
+
+    /**
+     * 被 Hook 方法执行前调用
+     * @return 本次调用是否生效
+     */
+    protected boolean before(MethodHookParam param) throws Throwable {
+        return false;
+    }
+
+    /**
+     * 被 Hook 方法执行后调用
+     * @return 本次调用是否生效
+     */
+    protected boolean after(MethodHookParam param) throws Throwable {
+        return false;
+    }
+
+    @Override
+    protected final void beforeHookedMethod(MethodHookParam param) throws Throwable {
+        long start = System.nanoTime();
+        boolean effect = false;
+        try {
+            effect = before(param);
+        } finally {
+            finish(start, effect);
+        }
+    }
+
+    @Override
+    protected final void afterHookedMethod(MethodHookParam param) throws Throwable {
+        long start = System.nanoTime();
+        boolean effect = false;
+        try {
+            effect = after(param);
+        } finally {
+            finish(start, effect);
+        }
+    }
+
+    private void finish(long start, boolean effect) {
+        time.record(System.nanoTime() - start);
+        long n = calls.incrementAndGet();
+        if (effect) {
+            effective.incrementAndGet();
+        } else if (removable && n == ModuleConfig.DEAD_HOOK_CALLS && effective.get() == 0) {
+            remove();
+        }
+    }
+
+    /**
+     * 由 HookManifest 在安装成功后登记 Unhook 句柄
+     */
+    void attach(Collection<Unhook> handles) {
+        unhooks.addAll(handles);
+    }
+
+    void remove() {
+        if (!removed.compareAndSet(false, true)) {
+            return;
+        }
+        for (Unhook unhook : unhooks) {
+            try {
+                unhook.unhook();
+            } catch (Throwable t) {
+                ModuleLog.w(TAG, "Failed to unhook {}: {}", name, t.getMessage());
+            }
+        }
+        ModuleLog.i(TAG, "Removed {} after {} calls, {} effective", name, calls.get(), effective.get());
+    }
+
+    /**
+     * 功能被关闭时卸载它的全部 Hook，并从统计列表中移除（重新开启时会创建新的实例）
+     * @return 本次卸载的 Hook 数量
+     */
+    static int removeFeature(int feature) {
+        List<ProfiledHook> dropped = new ArrayList<>();
+        int count = 0;
+        for (ProfiledHook hook : ALL) {
+            if (hook.feature != feature) continue;
+            if (!hook.isRemoved()) {
+                hook.remove();
+                count++;
+            }
+            dropped.add(hook);
+        }
+        ALL.removeAll(dropped);
+        return count;
+    }
+
+    long calls() {
+        return calls.get();
+    }
+
+    long effective() {
+        return effective.get();
+    }
+
+    boolean isRemoved() {
+        return removed.get();
+    }
+
+    /**
+     * 一行一个 Hook 的统计摘要
+     */
+    static List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        for (ProfiledHook hook : ALL) {
+            lines.add(hook.toString());
+        }
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        return time + " calls=" + calls.get() + " effective=" + effective.get() + (removed.get() ? " (removed)" : "");
+    }
+}
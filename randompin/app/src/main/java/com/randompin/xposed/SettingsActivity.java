@@ -1,40 +1,216 @@
 package com.randompin.xposed;
 
 import android.app.Activity;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.os.Build;
 import android.os.Bundle;
+import android.widget.Button;
+import android.widget.CompoundButton;
+import android.widget.LinearLayout;
+import android.widget.ScrollView;
+import android.widget.Switch;
 import android.widget.TextView;
 import android.widget.Toast;
 import android.view.Gravity;
+import android.view.View;
 import android.graphics.Color;
+import android.graphics.Typeface;
+
+import java.util.Map;
+import java.util.TreeMap;
 
 public class SettingsActivity extends Activity {
-    
+
+    // 各进程回复的性能快照，按进程名排序显示
+    private final Map<String, String> stats = new TreeMap<>();
+    private TextView statsView;
+    // 功能开关，被 Hook 的进程通过 XSharedPreferences 读取；模块未激活时为 null
+    private SharedPreferences features;
+    private Switch shuffleSwitch;
+    private Switch hardShuffleSwitch;
+    private Switch doubleTapSwitch;
+    private Switch legacyPointerSwitch;
+
+    private final BroadcastReceiver statsReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Bundle snapshot = intent.getBundleExtra(Diagnostics.EXTRA_SNAPSHOT);
+            if (snapshot == null || !Diagnostics.isTrustedReply(context.getApplicationContext(), intent)) {
+                return;
+            }
+            stats.put(snapshot.getString(Diagnostics.KEY_PROCESS), Diagnostics.format(snapshot));
+            showStats();
+        }
+    };
+
     // 这个方法永远返回 false，除非被 Xposed 成功 Hook 强制返回 true
     public boolean isModuleActive() {
         return false;
     }
-    
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        
+
         boolean isActive = isModuleActive();
-        
+
         TextView textView = new TextView(this);
         if (isActive) {
             textView.setText("✅ RandomPIN 模块已成功激活！\n\n您现在的系统界面 (System UI) 已被接管。\n\n功能：\n1. 锁屏密码乱序\n2. 桌面双击锁屏");
             textView.setTextColor(Color.parseColor("#388E3C")); // Green
         } else {
-            textView.setText("❌ 模块未激活\n\n请在 LSPosed 管理器中：\n1. 启用本模块\n2. 勾选作用域:\n   - 系统界面 (System UI)\n   - Android Framework\n3. 重启设备生效");
+            textView.setText("❌ 模块未激活\n\n请在 LSPosed 管理器中：\n1. 启用本模块\n2. 勾选作用域:\n   - 系统界面 (System UI)\n   - Android Framework\n   - 桌面应用 (双击锁屏)\n3. 重启设备生效");
             textView.setTextColor(Color.parseColor("#D32F2F")); // Red
         }
-        
+
         textView.setTextSize(18);
         textView.setPadding(60, 60, 60, 60);
         textView.setGravity(Gravity.CENTER);
-        
-        setContentView(textView);
-        
+
+        // 功能开关：关闭的功能在被 Hook 进程中不安装任何 Hook
+        features = openFeatures();
+        TextView featuresTitle = new TextView(this);
+        featuresTitle.setText(features != null ? "功能开关（修改即时生效）" : "功能开关（模块未激活，无法保存）");
+        featuresTitle.setTextSize(16);
+        featuresTitle.setPadding(30, 30, 30, 10);
+        shuffleSwitch = featureSwitch("锁屏密码乱序", FeatureToggles.KEY_SHUFFLE, true);
+        hardShuffleSwitch = featureSwitch("硬洗牌：重组按键视图（兼容性更好，较慢）", FeatureToggles.KEY_HARD_SHUFFLE, false);
+        doubleTapSwitch = featureSwitch("桌面双击锁屏", FeatureToggles.KEY_DOUBLE_TAP, true);
+        legacyPointerSwitch = featureSwitch("全局触摸 Hook（旧方案，仅桌面未加入作用域时开启）", FeatureToggles.KEY_LEGACY_POINTER, false);
+        updateDependentSwitches();
+
+        // 性能数据：由被 Hook 的进程通过广播回复
+        Button refresh = new Button(this);
+        refresh.setText("刷新性能数据");
+        refresh.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                requestStats();
+            }
+        });
+
+        // 导出为纯文本，便于对比不同 ROM
+        Button export = new Button(this);
+        export.setText("导出性能数据");
+        export.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                exportStats();
+            }
+        });
+
+        statsView = new TextView(this);
+        statsView.setTextSize(11);
+        statsView.setTypeface(Typeface.MONOSPACE);
+        statsView.setTextIsSelectable(true);
+        statsView.setPadding(30, 30, 30, 30);
+
+        LinearLayout layout = new LinearLayout(this);
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.addView(textView);
+        layout.addView(featuresTitle);
+        layout.addView(shuffleSwitch);
+        layout.addView(hardShuffleSwitch);
+        layout.addView(doubleTapSwitch);
+        layout.addView(legacyPointerSwitch);
+        layout.addView(refresh);
+        layout.addView(export);
+        layout.addView(statsView);
+
+        ScrollView scrollView = new ScrollView(this);
+        scrollView.addView(layout);
+        setContentView(scrollView);
+
         Toast.makeText(this, isActive ? "模块运行正常" : "请先在 LSPosed 中激活", Toast.LENGTH_SHORT).show();
     }
+
+    /**
+     * 模块的 SharedPreferences 需要对被 Hook 进程可读，只有 LSPosed 激活本模块后才允许 MODE_WORLD_READABLE
+     */
+    @SuppressWarnings("deprecation")
+    private SharedPreferences openFeatures() {
+        try {
+            return getSharedPreferences(FeatureToggles.PREFS_NAME, Context.MODE_WORLD_READABLE);
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    private Switch featureSwitch(String label, final String key, boolean def) {
+        Switch toggle = new Switch(this);
+        toggle.setText(label);
+        toggle.setPadding(30, 10, 30, 10);
+        toggle.setChecked(features != null ? features.getBoolean(key, def) : def);
+        toggle.setEnabled(features != null);
+        toggle.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton button, boolean checked) {
+                if (features == null) return;
+                // 写入文件后被 Hook 进程收到变更通知，安装或卸载对应的 Hook
+                features.edit().putBoolean(key, checked).apply();
+                updateDependentSwitches();
+            }
+        });
+        return toggle;
+    }
+
+    /**
+     * 洗牌策略依赖乱序功能，全局触摸 Hook 依赖双击锁屏
+     */
+    private void updateDependentSwitches() {
+        boolean editable = features != null;
+        hardShuffleSwitch.setEnabled(editable && shuffleSwitch.isChecked());
+        legacyPointerSwitch.setEnabled(editable && doubleTapSwitch.isChecked());
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        IntentFilter filter = new IntentFilter(Diagnostics.ACTION_REPLY);
+        if (Build.VERSION.SDK_INT >= 33) {
+            registerReceiver(statsReceiver, filter, Context.RECEIVER_EXPORTED);
+        } else {
+            registerReceiver(statsReceiver, filter);
+        }
+        requestStats();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        unregisterReceiver(statsReceiver);
+    }
+
+    private void requestStats() {
+        stats.clear();
+        statsView.setText("正在获取性能数据…");
+        sendBroadcast(new Intent(Diagnostics.ACTION_REQUEST));
+    }
+
+    private void showStats() {
+        statsView.setText(statsText());
+    }
+
+    private String statsText() {
+        StringBuilder sb = new StringBuilder();
+        for (String text : stats.values()) {
+            sb.append(text).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void exportStats() {
+        if (stats.isEmpty()) {
+            Toast.makeText(this, "暂无性能数据", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Intent send = new Intent(Intent.ACTION_SEND)
+            .setType("text/plain")
+            .putExtra(Intent.EXTRA_TEXT, statsText());
+        startActivity(Intent.createChooser(send, "导出性能数据"));
+    }
 }
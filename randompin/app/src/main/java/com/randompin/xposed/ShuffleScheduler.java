@@ -0,0 +1,403 @@
+package com.randompin.xposed;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+
+
+/**
+ * 键盘洗牌调度器
+ * NumPadKey 构造时只登记按键，不再给每个按键挂监听器；
+ * 同一轮主线程消息内创建的所有按键合并为一次处理，并按所属键盘容器去重，
+ * 每个容器同一时间最多只有一份待执行的洗牌工作，完成后移除所有监听器。
+ *
+ * 洗牌在键盘首帧绘制前的 OnPreDrawListener 中完成，用户看不到洗牌前的布局，
+ * 也不再需要定时器和"布局稳定两次"的额外布局轮次。
+ *
+ * 弹出层每次显示都会重新洗牌：弹出层隐藏或息屏时把键盘标记为待洗牌，
+ * 下次显示（onResume）时再安排一次。
+ *
+ * 所有监听都是一次性的：附着监听在第一次附着后移除；
+ * 按键在 READY_TIMEOUT_MS 内仍不足 10 个（部分 inflate 的键盘、非标准的 SIM PUK 变体）时
+ * 放弃本次洗牌并撤销监听，不会让待执行的工作一直挂在容器上。
+ */
+final class ShuffleScheduler {
+
+    private static final String TAG = "RandomPIN-Scheduler";
+
+    // 从键盘 inflate 到洗牌后首帧提交的耗时
+    static final LatencyHistogram INFLATE_TO_FIRST_FRAME = new LatencyHistogram("inflate->shuffled-first-frame(pre-draw)");
+    static final LatencyHistogram INFLATE_TO_FIRST_FRAME_LEGACY = new LatencyHistogram("inflate->shuffled-first-frame(legacy-timers)");
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    // 安排洗牌后等待按键齐全的最长时间
+    private static final long READY_TIMEOUT_MS = 2000;
+
+    // 待处理的新按键，可能来自异步 inflate 线程
+    private static final ArrayList<View> PENDING_KEYS = new ArrayList<>();
+    private static boolean drainPosted;
+    private static long batchStartNanos;
+
+    private static boolean screenOffReceiverRegistered;
+
+    private static final Runnable DRAIN = new Runnable() {
+        @Override
+        public void run() {
+            drainPendingKeys();
+        }
+    };
+
+    private ShuffleScheduler() {}
+
+    /**
+     * NumPadKey 构造完成时调用，开销为常数
+     */
+    static void onKeyCreated(View key) {
+        synchronized (PENDING_KEYS) {
+            if (PENDING_KEYS.isEmpty()) {
+                batchStartNanos = System.nanoTime();
+            }
+            PENDING_KEYS.add(key);
+            if (drainPosted) {
+                return;
+            }
+            drainPosted = true;
+        }
+        MAIN.post(DRAIN);
+    }
+
+    private static void drainPendingKeys() {
+        View[] keys;
+        long startNanos;
+        synchronized (PENDING_KEYS) {
+            keys = PENDING_KEYS.toArray(new View[0]);
+            PENDING_KEYS.clear();
+            drainPosted = false;
+            startNanos = batchStartNanos;
+        }
+
+        for (View key : keys) {
+            if (key.getParent() == null) {
+                // 尚未加入父容器，等它附着到窗口后再登记一次
+                waitForAttach(key);
+                continue;
+            }
+            Keypad keypad = KeypadRegistry.findOrLocate(key);
+            if (keypad != null) {
+                schedule(keypad, startNanos);
+            }
+        }
+    }
+
+    private static void waitForAttach(final View key) {
+        key.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+            @Override
+            public void onViewAttachedToWindow(View v) {
+                key.removeOnAttachStateChangeListener(this);
+                onKeyCreated(key);
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(View v) {
+            }
+        });
+    }
+
+    /**
+     * 键盘首次登记时调用：尚未附着到窗口时等附着后安排洗牌，并在首次登记时注册息屏广播
+     */
+    static void onKeypadRegistered(Keypad keypad) {
+        if (!keypad.container.isAttachedToWindow()) {
+            scheduleOnAttach(keypad, System.nanoTime());
+        }
+        registerScreenOffReceiver(keypad.container.getContext());
+    }
+
+    /**
+     * 容器附着到窗口后再安排一次洗牌，监听在第一次附着后即移除
+     */
+    private static void scheduleOnAttach(final Keypad keypad, final long startNanos) {
+        if (keypad.awaitingAttach) {
+            return;
+        }
+        keypad.awaitingAttach = true;
+        keypad.container.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+            @Override
+            public void onViewAttachedToWindow(View v) {
+                v.removeOnAttachStateChangeListener(this);
+                keypad.awaitingAttach = false;
+                schedule(keypad, startNanos);
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(View v) {
+            }
+        });
+    }
+
+    /**
+     * 息屏时补满排列池，并让所有键盘在下次显示时重新洗牌
+     */
+    private static void registerScreenOffReceiver(Context context) {
+        if (screenOffReceiverRegistered || context == null) {
+            return;
+        }
+        screenOffReceiverRegistered = true;
+        try {
+            context.getApplicationContext().registerReceiver(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context c, Intent intent) {
+                    PermutationPool.refillAsync();
+                    invalidateAll();
+                }
+            }, new IntentFilter(Intent.ACTION_SCREEN_OFF));
+        } catch (Throwable t) {
+            ModuleLog.w(TAG, "Failed to register screen-off receiver: {}", t.getMessage());
+        }
+        PermutationPool.refillAsync();
+    }
+
+    /**
+     * 所有键盘在下次显示前重新洗牌
+     */
+    static void invalidateAll() {
+        for (Keypad keypad : KeypadRegistry.all()) {
+            keypad.needsShuffle = true;
+        }
+    }
+
+    /**
+     * 弹出层显示：为其中的键盘安排洗牌
+     */
+    static void onBouncerShown(View securityView) {
+        long now = System.nanoTime();
+        for (Keypad keypad : KeypadRegistry.locate(securityView)) {
+            schedule(keypad, now);
+        }
+        if (ModuleConfig.TRACE_FRAMES) {
+            FrameTracer.start(securityView);
+        }
+    }
+
+    /**
+     * 弹出层隐藏：其中的键盘下次显示时重新洗牌
+     */
+    static void onBouncerHidden(View securityView) {
+        if (ModuleConfig.TRACE_FRAMES) {
+            FrameTracer.stop(securityView);
+        }
+        for (Keypad keypad : KeypadRegistry.locate(securityView)) {
+            keypad.needsShuffle = true;
+        }
+    }
+
+    /**
+     * 为键盘安排一次洗牌，同一容器已有待执行工作或本次显示已洗过时直接返回
+     * @param startNanos 键盘开始显示（inflate / 弹出层显示）的时刻，用于统计到洗牌后首帧的耗时
+     */
+    static void schedule(Keypad keypad, long startNanos) {
+        if (keypad.pending || !keypad.needsShuffle) {
+            return;
+        }
+        if (keypad.startNanos == 0) {
+            keypad.startNanos = startNanos;
+        }
+        if (!keypad.container.isAttachedToWindow()) {
+            scheduleOnAttach(keypad, startNanos);
+            return;
+        }
+        keypad.pending = true;
+        arm(keypad);
+    }
+
+    /**
+     * 立即洗牌（旧方案中 KeyguardSecurityContainer 的 500ms 延迟路径）
+     */
+    static void shuffleNow(Keypad keypad, long startNanos) {
+        if (!keypad.needsShuffle) {
+            return;
+        }
+        if (keypad.startNanos == 0) {
+            keypad.startNanos = startNanos;
+        }
+        shuffle(keypad);
+    }
+
+    private static void arm(Keypad keypad) {
+        if (ModuleConfig.LEGACY_READINESS) {
+            armLegacy(keypad);
+        } else {
+            armPreDraw(keypad);
+        }
+    }
+
+    /**
+     * 在键盘下一次绘制前洗牌
+     */
+    private static void armPreDraw(final Keypad keypad) {
+        final ViewGroup container = keypad.container;
+        keypad.preDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                if (KeypadShuffler.countDigitButtons(container) < 10) {
+                    // 按键尚未齐全，等下一帧
+                    return true;
+                }
+                container.getViewTreeObserver().removeOnPreDrawListener(this);
+                keypad.preDrawListener = null;
+                disarmTimeout(keypad);
+                if (!keypad.pending) {
+                    return true;
+                }
+                keypad.pending = false;
+                // 洗牌请求了重新布局时取消本帧，布局完成后直接画出洗牌后的结果
+                return !shuffle(keypad) || !container.isLayoutRequested();
+            }
+        };
+        container.getViewTreeObserver().addOnPreDrawListener(keypad.preDrawListener);
+        armTimeout(keypad, new Runnable() {
+            @Override
+            public void run() {
+                if (keypad.preDrawListener != null) {
+                    container.getViewTreeObserver().removeOnPreDrawListener(keypad.preDrawListener);
+                    keypad.preDrawListener = null;
+                }
+            }
+        });
+    }
+
+    /**
+     * 超时仍未洗牌时执行 abandon 撤销监听，并清除待执行标记（needsShuffle 保持置位，下次显示时重新安排）
+     * 用主线程 Handler 计时：容器离开窗口后 View.postDelayed 会一直挂起到重新附着
+     */
+    private static void armTimeout(final Keypad keypad, final Runnable abandon) {
+        disarmTimeout(keypad);
+        keypad.readyTimeout = new Runnable() {
+            @Override
+            public void run() {
+                keypad.readyTimeout = null;
+                if (!keypad.pending) {
+                    return;
+                }
+                abandon.run();
+                keypad.pending = false;
+                ModuleLog.w(TAG, "{}: only {} digit keys after timeout, shuffle abandoned",
+                    keypad, KeypadShuffler.countDigitButtons(keypad.container));
+            }
+        };
+        MAIN.postDelayed(keypad.readyTimeout, READY_TIMEOUT_MS);
+    }
+
+    private static void disarmTimeout(Keypad keypad) {
+        if (keypad.readyTimeout != null) {
+            MAIN.removeCallbacks(keypad.readyTimeout);
+            keypad.readyTimeout = null;
+        }
+    }
+
+    /**
+     * 旧方案：等待容器布局稳定或 150ms 定时器，二者先到先执行，另一个随即撤销
+     */
+    private static void armLegacy(final Keypad keypad) {
+        final ViewGroup container = keypad.container;
+        final Runnable[] fallback = new Runnable[1];
+
+        // 使用 ViewTreeObserver 监听全局布局完成
+        final ViewTreeObserver.OnGlobalLayoutListener layoutListener = new ViewTreeObserver.OnGlobalLayoutListener() {
+            private int lastChildCount = 0;
+            private int stableCount = 0;
+
+            @Override
+            public void onGlobalLayout() {
+                int childCount = KeypadShuffler.countDigitButtons(container);
+
+                // 等待子View数量稳定（连续两次检测到相同数量且>=10）
+                if (childCount >= 10) {
+                    if (childCount == lastChildCount) {
+                        stableCount++;
+                        if (stableCount >= 2) {
+                            finishLegacy(keypad, this, fallback[0]);
+                        }
+                    } else {
+                        stableCount = 0;
+                    }
+                    lastChildCount = childCount;
+                }
+            }
+        };
+
+        // 同时也执行一次立即检查（某些设备可能不需要等待）
+        fallback[0] = new Runnable() {
+            @Override
+            public void run() {
+                if (KeypadShuffler.countDigitButtons(container) >= 10) {
+                    finishLegacy(keypad, layoutListener, this);
+                }
+            }
+        };
+
+        container.getViewTreeObserver().addOnGlobalLayoutListener(layoutListener);
+        container.postDelayed(fallback[0], 150);
+        armTimeout(keypad, new Runnable() {
+            @Override
+            public void run() {
+                container.getViewTreeObserver().removeOnGlobalLayoutListener(layoutListener);
+                container.removeCallbacks(fallback[0]);
+            }
+        });
+    }
+
+    private static void finishLegacy(Keypad keypad, ViewTreeObserver.OnGlobalLayoutListener layoutListener, Runnable fallback) {
+        ViewGroup container = keypad.container;
+        container.getViewTreeObserver().removeOnGlobalLayoutListener(layoutListener);
+        container.removeCallbacks(fallback);
+        disarmTimeout(keypad);
+        if (!keypad.pending) {
+            return;
+        }
+        keypad.pending = false;
+        shuffle(keypad);
+    }
+
+    /**
+     * 执行洗牌，并在洗牌后的首帧提交时记录耗时
+     * @return 是否改动了键盘
+     */
+    private static boolean shuffle(Keypad keypad) {
+        if (!keypad.needsShuffle) {
+            return false;
+        }
+        if (!KeypadShuffler.shuffle(keypad)) {
+            return false;
+        }
+        reportFirstFrame(keypad);
+        return true;
+    }
+
+    private static void reportFirstFrame(Keypad keypad) {
+        final long startNanos = keypad.startNanos;
+        keypad.startNanos = 0;
+        if (startNanos == 0) {
+            return;
+        }
+        final LatencyHistogram histogram = ModuleConfig.LEGACY_READINESS
+            ? INFLATE_TO_FIRST_FRAME_LEGACY
+            : INFLATE_TO_FIRST_FRAME;
+        keypad.container.getViewTreeObserver().registerFrameCommitCallback(new Runnable() {
+            @Override
+            public void run() {
+                histogram.record(System.nanoTime() - startNanos);
+                ModuleLog.d(TAG, "{}", histogram);
+            }
+        });
+    }
+}
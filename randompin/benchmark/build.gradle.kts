@@ -0,0 +1,23 @@
+plugins {
+    java
+    id("me.champeau.jmh")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    jmh(project(":core"))
+}
+
+// ./gradlew :benchmark:jmh
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    // 每次操作的分配字节数（gc.alloc.rate.norm）
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
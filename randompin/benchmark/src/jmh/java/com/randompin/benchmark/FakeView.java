@@ -0,0 +1,87 @@
+package com.randompin.benchmark;
+
+import java.util.ArrayList;
+
+/**
+ * 合成视图：只保留核心算法通过 ViewTree 访问的属性
+ * children 为 null 表示叶子视图（View），否则为容器（ViewGroup）
+ */
+public class FakeView {
+
+    int id;
+    Object layoutParams = new Object();
+    CharSequence contentDescription;
+    final ArrayList<FakeView> children;
+
+    FakeView(boolean group) {
+        this.children = group ? new ArrayList<FakeView>() : null;
+    }
+
+    FakeView add(FakeView child) {
+        children.add(child);
+        return this;
+    }
+
+    /** 文本视图（TextView） */
+    public static class Text extends FakeView {
+        CharSequence text;
+
+        Text(CharSequence text) {
+            super(false);
+            this.text = text;
+        }
+    }
+
+    /** 普通容器 */
+    public static class Group extends FakeView {
+        Group() {
+            super(true);
+        }
+    }
+
+    /** 约束布局：键盘容器 */
+    public static class ConstraintLayout extends FakeView {
+        ConstraintLayout() {
+            super(true);
+        }
+    }
+
+    /** AOSP NumPadKey：int mDigit + 数字标签 + 字母标签 */
+    public static class NumPadKey extends FakeView {
+        int mDigit;
+
+        NumPadKey(int digit, String letters) {
+            super(true);
+            this.mDigit = digit;
+            this.contentDescription = String.valueOf(digit);
+            add(new Text(String.valueOf(digit)));
+            add(new Text(letters));
+        }
+    }
+
+    /** 厂商改名的按键：字段名为 mNumber，类名不含 NumPadKey */
+    public static class VendorDigitButton extends FakeView {
+        int mNumber;
+
+        VendorDigitButton(int digit) {
+            super(true);
+            this.mNumber = digit;
+            add(new Text(String.valueOf(digit)));
+        }
+    }
+
+    /** 只有文本的按键（部分深度定制 ROM） */
+    public static class VendorTextKey extends Text {
+        VendorTextKey(int digit) {
+            super(String.valueOf(digit));
+        }
+    }
+
+    /** 删除 / 确认等非数字按键 */
+    public static class ImageButton extends FakeView {
+        ImageButton(String description) {
+            super(false);
+            this.contentDescription = description;
+        }
+    }
+}
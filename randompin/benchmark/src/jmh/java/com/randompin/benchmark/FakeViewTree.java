@@ -0,0 +1,83 @@
+package com.randompin.benchmark;
+
+import com.randompin.core.ViewTree;
+
+/**
+ * 合成视图的 ViewTree 实现
+ */
+public final class FakeViewTree implements ViewTree<FakeView> {
+
+    public static final FakeViewTree INSTANCE = new FakeViewTree();
+
+    private FakeViewTree() {}
+
+    @Override
+    public boolean isGroup(FakeView node) {
+        return node.children != null;
+    }
+
+    @Override
+    public int childCount(FakeView group) {
+        return group.children != null ? group.children.size() : 0;
+    }
+
+    @Override
+    public FakeView childAt(FakeView group, int index) {
+        return group.children.get(index);
+    }
+
+    @Override
+    public boolean isText(FakeView node) {
+        return node instanceof FakeView.Text;
+    }
+
+    @Override
+    public CharSequence text(FakeView node) {
+        return node instanceof FakeView.Text ? ((FakeView.Text) node).text : null;
+    }
+
+    @Override
+    public void setText(FakeView node, CharSequence text) {
+        ((FakeView.Text) node).text = text;
+    }
+
+    @Override
+    public CharSequence contentDescription(FakeView node) {
+        return node.contentDescription;
+    }
+
+    @Override
+    public void setContentDescription(FakeView node, CharSequence description) {
+        node.contentDescription = description;
+    }
+
+    @Override
+    public int id(FakeView node) {
+        return node.id;
+    }
+
+    @Override
+    public void setId(FakeView node, int id) {
+        node.id = id;
+    }
+
+    @Override
+    public Object layoutParams(FakeView node) {
+        return node.layoutParams;
+    }
+
+    @Override
+    public void setLayoutParams(FakeView node, Object params) {
+        node.layoutParams = params;
+    }
+
+    @Override
+    public void removeAllChildren(FakeView group) {
+        group.children.clear();
+    }
+
+    @Override
+    public void addChild(FakeView group, FakeView child) {
+        group.children.add(child);
+    }
+}
@@ -0,0 +1,126 @@
+package com.randompin.benchmark;
+
+import com.randompin.core.DigitClassifier;
+import com.randompin.core.KeypadSearch;
+import com.randompin.core.Shuffles;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 键盘容器搜索、数字键识别和两种洗牌策略的基准
+ * 使用 -prof gc（build.gradle.kts 中已默认开启）查看每次操作的分配字节数。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeypadBenchmark {
+
+    @Param({SyntheticKeyguard.AOSP, SyntheticKeyguard.VENDOR_FIELD, SyntheticKeyguard.VENDOR_TEXT, SyntheticKeyguard.DUAL_KEYPAD})
+    public String variant;
+
+    private FakeView root;
+    private FakeView keypad;
+    private DigitClassifier<FakeView> digits;
+    private Shuffles.RemapState<FakeView> remapState;
+    private final Random random = new Random(42);
+    private final List<FakeView> found = new ArrayList<>();
+    private final int[][] permutations = new int[64][];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        root = SyntheticKeyguard.build(variant);
+        digits = newClassifier();
+        KeypadSearch.locate(FakeViewTree.INSTANCE, digits, root, found);
+        if (found.isEmpty()) {
+            throw new IllegalStateException("No keypad in variant " + variant);
+        }
+        keypad = found.get(0);
+        remapState = Shuffles.RemapState.capture(FakeViewTree.INSTANCE, digits, keypad);
+        for (int i = 0; i < permutations.length; i++) {
+            permutations[i] = Shuffles.randomPermutation(10, random);
+        }
+    }
+
+    private static DigitClassifier<FakeView> newClassifier() {
+        return new DigitClassifier<>(FakeViewTree.INSTANCE, FakeView.class, null);
+    }
+
+    private int[] nextPermutation() {
+        return permutations[next++ & (permutations.length - 1)];
+    }
+
+    /**
+     * 整棵锁屏树搜索键盘容器（识别策略已缓存）
+     */
+    @Benchmark
+    public void containerSearch(Blackhole bh) {
+        found.clear();
+        KeypadSearch.locate(FakeViewTree.INSTANCE, digits, root, found);
+        bh.consume(found.size());
+    }
+
+    /**
+     * 键盘内所有子视图的数字识别（识别策略已缓存）
+     */
+    @Benchmark
+    public int classifyWarm() {
+        int sum = 0;
+        for (FakeView child : keypad.children) {
+            sum += digits.digitOf(child);
+        }
+        return sum;
+    }
+
+    /**
+     * 首次识别：每个类都要反射解析一次（对应每次 SystemUI 启动后的第一次搜索）
+     */
+    @Benchmark
+    public void searchCold(Blackhole bh) {
+        List<FakeView> out = new ArrayList<>();
+        KeypadSearch.locate(FakeViewTree.INSTANCE, newClassifier(), root, out);
+        bh.consume(out);
+    }
+
+    /**
+     * 硬洗牌：改写 ID / LayoutParams 后清空并重建容器
+     */
+    @Benchmark
+    public int shuffleHard() {
+        return Shuffles.hard(FakeViewTree.INSTANCE, digits, keypad, nextPermutation(), random);
+    }
+
+    /**
+     * 标签重映射：只改写数字字段和文本；不支持的变体（只有文本的按键）回退到硬洗牌
+     */
+    @Benchmark
+    public boolean shuffleRemap() {
+        int[] perm = nextPermutation();
+        if (remapState != null) {
+            return Shuffles.remap(FakeViewTree.INSTANCE, digits, remapState, perm);
+        }
+        return Shuffles.hard(FakeViewTree.INSTANCE, digits, keypad, perm, random) >= 10;
+    }
+
+    /**
+     * 排列生成（PermutationPool 在后台线程中执行的部分）
+     */
+    @Benchmark
+    public int[] permutation() {
+        return Shuffles.randomPermutation(10, random);
+    }
+}
@@ -0,0 +1,108 @@
+package com.randompin.benchmark;
+
+/**
+ * 合成锁屏视图树
+ * 深度和分支数参照 Android 13-16 的 NotificationShadeWindowView：
+ * 状态栏、通知、时钟等干扰子树 + 约 12 层嵌套后的 KeyguardPINView 键盘容器。
+ */
+public final class SyntheticKeyguard {
+
+    /** AOSP NumPadKey（mDigit 字段 + 数字/字母标签） */
+    public static final String AOSP = "aosp";
+    /** 厂商改名的按键类和数字字段 */
+    public static final String VENDOR_FIELD = "vendor-field";
+    /** 只有文本的按键，只能硬洗牌 */
+    public static final String VENDOR_TEXT = "vendor-text";
+    /** 同时存在 PIN 和 SIM PIN 两个键盘 */
+    public static final String DUAL_KEYPAD = "dual-keypad";
+
+    private static final String[] LETTERS = {"+", "", "ABC", "DEF", "GHI", "JKL", "MNO", "PQRS", "TUV", "WXYZ"};
+    private static final int NESTING = 12;
+    private static final int NOTIFICATIONS = 8;
+
+    private SyntheticKeyguard() {}
+
+    public static FakeView build(String variant) {
+        FakeView root = new FakeView.Group();
+        root.add(statusBar());
+        root.add(notifications());
+
+        FakeView parent = root;
+        for (int depth = 0; depth < NESTING; depth++) {
+            FakeView level = new FakeView.Group();
+            parent.add(level);
+            // 每层夹带一些装饰视图（背景、分隔线、提示文本）
+            level.add(new FakeView(false));
+            if (depth % 3 == 0) {
+                level.add(new FakeView.Text("Enter PIN"));
+            }
+            parent = level;
+        }
+
+        parent.add(keypad(variant));
+        if (DUAL_KEYPAD.equals(variant)) {
+            FakeView sim = new FakeView.Group();
+            sim.add(new FakeView.Text("SIM PIN"));
+            sim.add(keypad(AOSP));
+            parent.add(sim);
+        }
+        return root;
+    }
+
+    /**
+     * 键盘容器：10 个数字键 + 删除 + 确认 + 两个 Flow 辅助视图
+     */
+    static FakeView keypad(String variant) {
+        FakeView container = new FakeView.ConstraintLayout();
+        container.add(new FakeView(false));
+        container.add(new FakeView(false));
+        for (int i = 1; i <= 10; i++) {
+            int digit = i % 10;
+            FakeView key;
+            if (VENDOR_FIELD.equals(variant)) {
+                key = new FakeView.VendorDigitButton(digit);
+            } else if (VENDOR_TEXT.equals(variant)) {
+                key = new FakeView.VendorTextKey(digit);
+            } else {
+                key = new FakeView.NumPadKey(digit, LETTERS[digit]);
+            }
+            key.id = 0x7f0a0100 + digit;
+            container.add(key);
+        }
+        container.add(new FakeView.ImageButton("Delete"));
+        container.add(new FakeView.ImageButton("Enter"));
+        return container;
+    }
+
+    /**
+     * 状态栏：时钟（含单个数字的文本）、信号、电量
+     */
+    private static FakeView statusBar() {
+        FakeView bar = new FakeView.Group();
+        FakeView clock = new FakeView.Group();
+        clock.add(new FakeView.Text("9")).add(new FakeView.Text(":")).add(new FakeView.Text("41"));
+        bar.add(clock);
+        FakeView icons = new FakeView.Group();
+        for (int i = 0; i < 6; i++) {
+            icons.add(new FakeView(false));
+        }
+        icons.add(new FakeView.Text("5G"));
+        icons.add(new FakeView.Text("87%"));
+        bar.add(icons);
+        return bar;
+    }
+
+    private static FakeView notifications() {
+        FakeView list = new FakeView.Group();
+        for (int i = 0; i < NOTIFICATIONS; i++) {
+            FakeView row = new FakeView.Group();
+            FakeView header = new FakeView.Group();
+            header.add(new FakeView(false)).add(new FakeView.Text("Messages")).add(new FakeView.Text("2m"));
+            row.add(header);
+            row.add(new FakeView.Text("Title " + i));
+            row.add(new FakeView.Text("Body text of notification " + i));
+            list.add(row);
+        }
+        return list;
+    }
+}
@@ -6,4 +6,5 @@ buildscript {
 
 plugins {
     id("com.android.application") version "8.2.0" apply false
+    id("me.champeau.jmh") version "0.7.2" apply false
 }
@@ -0,0 +1,13 @@
+plugins {
+    `java-library`
+}
+
+// 纯 Java 算法模块：不依赖 android.jar，可以在 JVM 上直接跑基准测试
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    testImplementation("junit:junit:4.13.2")
+}
@@ -0,0 +1,369 @@
+package com.randompin.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 离线 dex 扫描器：直接解析 SystemUI APK 中的 classes*.dex，找出
+ * NumPadKey（或厂商改名/继承的版本）、它的 int 数字字段，以及 PIN 输入视图类
+ * 只依赖 java.io / java.util.zip，不引用任何 android 类，可以在普通 JVM 上对样例 dex 运行。
+ * 只读取需要的结构（string_ids / type_ids / field_ids / class_defs / class_data），不解析代码。
+ */
+public final class DexScanner {
+
+    public static final String NUM_PAD_KEY = "com.android.keyguard.NumPadKey";
+    public static final String PIN_BASED_INPUT_VIEW = "com.android.keyguard.KeyguardPinBasedInputView";
+
+    private static final String[] DIGIT_FIELD_NAMES = {"mDigit", "digit", "mNumber", "number", "mDigitValue", "digitValue"};
+
+    private static final int NO_INDEX = 0xFFFFFFFF;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    private DexScanner() {}
+
+    /**
+     * 扫描结果，类名均为 Java 二进制名（com.foo.Bar$Inner）
+     */
+    public static final class Result {
+        /** NumPadKey 基类（AOSP 名称优先），找不到时为 null */
+        public String numPadKeyClass;
+        /** 数字字段所在的类和字段名 */
+        public String digitFieldOwner;
+        public String digitFieldName;
+        /** 所有 NumPadKey 及其子类 */
+        public final List<String> numPadKeyClasses = new ArrayList<>();
+        /** 可实例化的 PIN 输入视图类（KeyguardPinBasedInputView 的子类） */
+        public final List<String> pinViewClasses = new ArrayList<>();
+        /** 扫描的类总数 */
+        public int classCount;
+
+        @Override
+        public String toString() {
+            return "numPadKey=" + numPadKeyClass
+                + ", digitField=" + digitFieldOwner + "#" + digitFieldName
+                + ", numPadKeys=" + numPadKeyClasses.size()
+                + ", pinViews=" + pinViewClasses.size()
+                + ", classes=" + classCount;
+        }
+    }
+
+    /**
+     * 扫描一组 APK（base + splits）
+     */
+    public static Result scanApks(List<File> apks) throws IOException {
+        List<Dex> dexFiles = new ArrayList<>();
+        for (File apk : apks) {
+            ZipFile zip = new ZipFile(apk);
+            try {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    String name = entry.getName();
+                    if (name.startsWith("classes") && name.endsWith(".dex") && name.indexOf('/') < 0) {
+                        InputStream in = zip.getInputStream(entry);
+                        try {
+                            dexFiles.add(new Dex(readFully(in, (int) entry.getSize())));
+                        } finally {
+                            in.close();
+                        }
+                    }
+                }
+            } finally {
+                zip.close();
+            }
+        }
+        return scan(dexFiles);
+    }
+
+    /**
+     * 扫描若干 dex 文件的原始字节
+     */
+    public static Result scanDex(List<byte[]> dexBytes) {
+        List<Dex> dexFiles = new ArrayList<>(dexBytes.size());
+        for (byte[] bytes : dexBytes) {
+            dexFiles.add(new Dex(bytes));
+        }
+        return scan(dexFiles);
+    }
+
+    private static Result scan(List<Dex> dexFiles) {
+        // 第一遍：所有类的 描述符 -> 类定义（含父类）
+        Map<String, ClassDef> classes = new HashMap<>();
+        for (Dex dex : dexFiles) {
+            dex.readClassDefs(classes);
+        }
+
+        Result result = new Result();
+        result.classCount = classes.size();
+
+        String numPadKey = descriptorOf(NUM_PAD_KEY);
+        String pinBasedInputView = descriptorOf(PIN_BASED_INPUT_VIEW);
+        ClassDef numPadBase = classes.get(numPadKey);
+
+        // 厂商改名时按简单类名匹配
+        if (numPadBase == null) {
+            for (ClassDef def : classes.values()) {
+                if (def.descriptor.endsWith("NumPadKey;") && !isSubclassOf(def, classes, "NumPadKey;")) {
+                    numPadBase = def;
+                    break;
+                }
+            }
+        }
+        if (numPadBase == null) {
+            // 没有 NumPadKey 的 ROM（安卓 11 及更早）只收集 PIN 视图
+            collectPinViews(classes, pinBasedInputView, result);
+            return result;
+        }
+        result.numPadKeyClass = binaryNameOf(numPadBase.descriptor);
+
+        for (ClassDef def : classes.values()) {
+            if (def == numPadBase || isSubclassOf(def, classes, numPadBase.descriptor)) {
+                result.numPadKeyClasses.add(binaryNameOf(def.descriptor));
+            }
+        }
+
+        // 第二遍：只解析 NumPadKey 及其子类的实例字段
+        FieldRef digitField = findDigitField(numPadBase);
+        if (digitField == null) {
+            for (ClassDef def : classes.values()) {
+                if (def != numPadBase && isSubclassOf(def, classes, numPadBase.descriptor)) {
+                    digitField = findDigitField(def);
+                    if (digitField != null) break;
+                }
+            }
+        }
+        if (digitField != null) {
+            result.digitFieldOwner = binaryNameOf(digitField.owner);
+            result.digitFieldName = digitField.name;
+        }
+
+        collectPinViews(classes, pinBasedInputView, result);
+        return result;
+    }
+
+    private static void collectPinViews(Map<String, ClassDef> classes, String base, Result result) {
+        for (ClassDef def : classes.values()) {
+            if ((def.accessFlags & (ACC_ABSTRACT | ACC_INTERFACE)) != 0) continue;
+            if (isSubclassOf(def, classes, base)) {
+                result.pinViewClasses.add(binaryNameOf(def.descriptor));
+            }
+        }
+    }
+
+    /**
+     * 沿父类链判断 def 是否继承自 ancestor（完整描述符，或以 ';' 结尾的描述符后缀）
+     */
+    private static boolean isSubclassOf(ClassDef def, Map<String, ClassDef> classes, String ancestor) {
+        boolean suffix = !ancestor.startsWith("L");
+        String superclass = def.superclass;
+        // 父类链在 APK 中断开（框架类）时结束；深度限制防止损坏数据造成死循环
+        for (int depth = 0; superclass != null && depth < 64; depth++) {
+            if (suffix ? superclass.endsWith(ancestor) : superclass.equals(ancestor)) {
+                return true;
+            }
+            ClassDef parent = classes.get(superclass);
+            superclass = parent != null ? parent.superclass : null;
+        }
+        return false;
+    }
+
+    /**
+     * 在类的实例字段中按名称挑出数字字段（与 DigitClassifier 的运行时规则一致）
+     */
+    private static FieldRef findDigitField(ClassDef def) {
+        List<String> intFields = def.dex.readIntInstanceFields(def);
+        for (String preferred : DIGIT_FIELD_NAMES) {
+            if (intFields.contains(preferred)) {
+                return new FieldRef(def.descriptor, preferred);
+            }
+        }
+        for (String name : intFields) {
+            String lower = name.toLowerCase();
+            if (lower.contains("digit") || lower.contains("number")) {
+                return new FieldRef(def.descriptor, name);
+            }
+        }
+        return null;
+    }
+
+    public static String descriptorOf(String binaryName) {
+        return "L" + binaryName.replace('.', '/') + ";";
+    }
+
+    public static String binaryNameOf(String descriptor) {
+        return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+    }
+
+    private static byte[] readFully(InputStream in, int sizeHint) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sizeHint > 0 ? sizeHint : 1 << 20);
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class ClassDef {
+        final Dex dex;
+        final String descriptor;
+        final String superclass;
+        final int accessFlags;
+        final int classDataOff;
+
+        ClassDef(Dex dex, String descriptor, String superclass, int accessFlags, int classDataOff) {
+            this.dex = dex;
+            this.descriptor = descriptor;
+            this.superclass = superclass;
+            this.accessFlags = accessFlags;
+            this.classDataOff = classDataOff;
+        }
+    }
+
+    private static final class FieldRef {
+        final String owner;
+        final String name;
+
+        FieldRef(String owner, String name) {
+            this.owner = owner;
+            this.name = name;
+        }
+    }
+
+    /**
+     * 单个 dex 文件的只读视图（小端序）
+     */
+    private static final class Dex {
+        private final byte[] data;
+        private final int stringIdsOff;
+        private final int typeIdsSize;
+        private final int typeIdsOff;
+        private final int fieldIdsSize;
+        private final int fieldIdsOff;
+        private final int classDefsSize;
+        private final int classDefsOff;
+        private final String[] typeCache;
+
+        Dex(byte[] data) {
+            if (data.length < 0x70 || data[0] != 'd' || data[1] != 'e' || data[2] != 'x' || data[3] != '\n') {
+                throw new IllegalArgumentException("Not a dex file");
+            }
+            this.data = data;
+            this.stringIdsOff = u4(0x3C);
+            this.typeIdsSize = u4(0x40);
+            this.typeIdsOff = u4(0x44);
+            this.fieldIdsSize = u4(0x50);
+            this.fieldIdsOff = u4(0x54);
+            this.classDefsSize = u4(0x60);
+            this.classDefsOff = u4(0x64);
+            this.typeCache = new String[typeIdsSize];
+        }
+
+        void readClassDefs(Map<String, ClassDef> out) {
+            for (int i = 0; i < classDefsSize; i++) {
+                int off = classDefsOff + i * 32;
+                String descriptor = type(u4(off));
+                int superIdx = u4(off + 8);
+                String superclass = superIdx == NO_INDEX ? null : type(superIdx);
+                // 同一个类出现在多个 dex 中时以第一个为准（与类加载顺序一致）
+                if (!out.containsKey(descriptor)) {
+                    out.put(descriptor, new ClassDef(this, descriptor, superclass, u4(off + 4), u4(off + 24)));
+                }
+            }
+        }
+
+        /**
+         * 读取类自身声明的 int 实例字段名
+         */
+        List<String> readIntInstanceFields(ClassDef def) {
+            List<String> names = new ArrayList<>();
+            if (def.classDataOff == 0) return names;
+            int[] pos = {def.classDataOff};
+            int staticFields = uleb128(pos);
+            int instanceFields = uleb128(pos);
+            uleb128(pos); // direct_methods_size
+            uleb128(pos); // virtual_methods_size
+            for (int i = 0; i < staticFields; i++) {
+                uleb128(pos);
+                uleb128(pos);
+            }
+            int fieldIdx = 0;
+            for (int i = 0; i < instanceFields; i++) {
+                fieldIdx += uleb128(pos);
+                int accessFlags = uleb128(pos);
+                if ((accessFlags & ACC_STATIC) != 0 || fieldIdx >= fieldIdsSize) continue;
+                int off = fieldIdsOff + fieldIdx * 8;
+                if ("I".equals(type(u2(off + 2)))) {
+                    names.add(string(u4(off + 4)));
+                }
+            }
+            return names;
+        }
+
+        private String type(int typeIdx) {
+            if (typeIdx < 0 || typeIdx >= typeIdsSize) return "";
+            String cached = typeCache[typeIdx];
+            if (cached == null) {
+                cached = string(u4(typeIdsOff + typeIdx * 4));
+                typeCache[typeIdx] = cached;
+            }
+            return cached;
+        }
+
+        /**
+         * 解码 string_data_item（MUTF-8）
+         */
+        private String string(int stringIdx) {
+            int[] pos = {u4(stringIdsOff + stringIdx * 4)};
+            int length = uleb128(pos);
+            char[] chars = new char[length];
+            int p = pos[0];
+            for (int i = 0; i < length; i++) {
+                int a = data[p++] & 0xFF;
+                if (a < 0x80) {
+                    chars[i] = (char) a;
+                } else if ((a & 0xE0) == 0xC0) {
+                    int b = data[p++] & 0x3F;
+                    chars[i] = (char) (((a & 0x1F) << 6) | b);
+                } else {
+                    int b = data[p++] & 0x3F;
+                    int c = data[p++] & 0x3F;
+                    chars[i] = (char) (((a & 0x0F) << 12) | (b << 6) | c);
+                }
+            }
+            return new String(chars);
+        }
+
+        private int uleb128(int[] pos) {
+            int result = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = data[pos[0]++] & 0xFF;
+                result |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0 && shift < 35);
+            return result;
+        }
+
+        private int u2(int off) {
+            return (data[off] & 0xFF) | (data[off + 1] & 0xFF) << 8;
+        }
+
+        private int u4(int off) {
+            return (data[off] & 0xFF) | (data[off + 1] & 0xFF) << 8
+                | (data[off + 2] & 0xFF) << 16 | (data[off + 3] & 0xFF) << 24;
+        }
+    }
+}
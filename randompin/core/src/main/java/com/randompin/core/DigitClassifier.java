@@ -0,0 +1,265 @@
+package com.randompin.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 数字键识别器：按视图的 Class 缓存"如何取出数字"的策略
+ * 每个类只在第一次遇到时反射解析一次（数字字段 / 文本子视图下标 / 非数字键），
+ * 之后的判断只是一次 Map 查找加一次字段读取，不反射、不抛异常、不分配对象。
+ *
+ * @param <V> 视图类型
+ */
+public final class DigitClassifier<V> {
+
+    /** 非数字键 */
+    public static final int NONE = -1;
+
+    private static final String[] DIGIT_FIELD_NAMES = {"mDigit", "digit", "mNumber", "number", "mDigitValue", "digitValue"};
+
+    private static final int KIND_NONE = 0;         // 确定不是数字键（负缓存）
+    private static final int KIND_FIELD = 1;        // 直接读取 int 数字字段
+    private static final int KIND_TEXT_SELF = 2;    // 自身是文本视图，读文本
+    private static final int KIND_TEXT_CHILD = 3;   // NumPadKey 内第 N 个文本子视图
+    private static final int KIND_DESCRIPTION = 4;  // 普通视图，读 content description
+    private static final int KIND_NUMPAD = 5;       // NumPadKey 但找不到数字来源
+
+    private static final Strategy NOT_A_DIGIT = new Strategy(KIND_NONE, null, -1, false);
+
+    /**
+     * 外部提供的符号信息（如 dex 扫描结果），没有时返回 false / null
+     */
+    public interface Symbols {
+        boolean isNumPadKey(Class<?> clazz);
+
+        Field digitField(Class<?> clazz);
+    }
+
+    private final ViewTree<V> tree;
+    private final Class<?> baseClass;
+    private final Symbols symbols;
+    private final ConcurrentHashMap<Class<?>, Strategy> strategies = new ConcurrentHashMap<>();
+
+    /**
+     * @param baseClass 视图基类，沿继承链查找数字字段时到此为止
+     */
+    public DigitClassifier(ViewTree<V> tree, Class<?> baseClass, Symbols symbols) {
+        this.tree = tree;
+        this.baseClass = baseClass;
+        this.symbols = symbols;
+    }
+
+    /**
+     * 清空已缓存的策略：外部符号更新后（如后台 dex 扫描完成）调用，之后每个类按新符号重新解析一次
+     */
+    public void invalidate() {
+        strategies.clear();
+    }
+
+    /**
+     * 获取视图的数字值
+     * @return 0-9；NumPadKey 找不到具体数字时返回 0；非数字键返回 {@link #NONE}
+     */
+    public int digitOf(V node) {
+        if (node == null) return NONE;
+        Strategy strategy = strategies.get(node.getClass());
+        if (strategy == null) {
+            strategy = resolve(node);
+        }
+        return digitOf(strategy, node);
+    }
+
+    /**
+     * 是否为数字键
+     */
+    public boolean isDigitKey(V node) {
+        return digitOf(node) != NONE;
+    }
+
+    /**
+     * 是否可以通过改写数字字段重映射该键（找到了 int 数字字段和显示数字的文本子视图）
+     */
+    public boolean canRemap(V key) {
+        Strategy strategy = strategies.get(key.getClass());
+        return strategy != null && strategy.kind == KIND_FIELD && strategy.textChildIndex >= 0;
+    }
+
+    /**
+     * 改写按键发送的数字
+     * @return 该键没有可写的数字字段时返回 false
+     */
+    public boolean setDigit(V key, int digit) {
+        Strategy strategy = strategies.get(key.getClass());
+        if (strategy == null || strategy.kind != KIND_FIELD) return false;
+        try {
+            strategy.field.setInt(key, digit);
+            return true;
+        } catch (IllegalAccessException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 按键中显示数字的文本子视图
+     */
+    public V digitLabel(V key) {
+        Strategy strategy = strategies.get(key.getClass());
+        if (strategy == null || strategy.textChildIndex < 0 || !tree.isGroup(key)) return null;
+        if (strategy.textChildIndex >= tree.childCount(key)) return null;
+        V child = tree.childAt(key, strategy.textChildIndex);
+        return tree.isText(child) ? child : null;
+    }
+
+    /**
+     * 解析并缓存某个类的数字提取策略（每个类只执行一次）
+     */
+    private Strategy resolve(V node) {
+        Class<?> clazz = node.getClass();
+        boolean isNumPad = clazz.getName().contains("NumPadKey") || (symbols != null && symbols.isNumPadKey(clazz));
+
+        Strategy strategy;
+        Field field = findDigitField(clazz);
+        if (field != null) {
+            strategy = new Strategy(KIND_FIELD, field, findDigitTextChild(node), isNumPad);
+        } else if (isNumPad) {
+            if (tree.isText(node)) {
+                strategy = new Strategy(KIND_TEXT_SELF, null, -1, true);
+            } else {
+                int index = findDigitTextChild(node);
+                strategy = index >= 0
+                    ? new Strategy(KIND_TEXT_CHILD, null, index, true)
+                    : new Strategy(KIND_NUMPAD, null, -1, true);
+            }
+        } else if (tree.isText(node)) {
+            strategy = new Strategy(KIND_TEXT_SELF, null, -1, false);
+        } else if (tree.isGroup(node)) {
+            // 普通布局容器不可能是数字键
+            strategy = NOT_A_DIGIT;
+        } else {
+            strategy = new Strategy(KIND_DESCRIPTION, null, -1, false);
+        }
+
+        Strategy existing = strategies.putIfAbsent(clazz, strategy);
+        return existing != null ? existing : strategy;
+    }
+
+    /**
+     * 查找数字字段：优先使用外部符号，再按常见字段名沿继承链查找，最后按名称特征在本类中模糊匹配
+     */
+    private Field findDigitField(Class<?> clazz) {
+        Field resolved = symbols != null ? symbols.digitField(clazz) : null;
+        if (resolved != null) {
+            return resolved;
+        }
+
+        for (Class<?> c = clazz; c != null && c != baseClass && c != Object.class; c = c.getSuperclass()) {
+            for (String name : DIGIT_FIELD_NAMES) {
+                try {
+                    Field field = c.getDeclaredField(name);
+                    if (field.getType() == int.class && !Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        return field;
+                    }
+                } catch (Throwable ignored) {}
+            }
+        }
+
+        try {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.getType() != int.class || Modifier.isStatic(field.getModifiers())) continue;
+                String name = field.getName().toLowerCase();
+                if (name.contains("digit") || name.contains("number")) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+        } catch (Throwable ignored) {}
+
+        return null;
+    }
+
+    /**
+     * 查找 NumPadKey 内部显示数字的文本子视图下标
+     */
+    private int findDigitTextChild(V node) {
+        if (!tree.isGroup(node)) return -1;
+        for (int i = 0; i < tree.childCount(node); i++) {
+            V child = tree.childAt(node, i);
+            if (tree.isText(child) && parseDigit(tree.text(child)) != NONE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 解析单个数字字符（忽略首尾空白），不分配对象
+     */
+    public static int parseDigit(CharSequence text) {
+        if (text == null) return NONE;
+        int digit = NONE;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) continue;
+            if (digit != NONE || c < '0' || c > '9') return NONE;
+            digit = c - '0';
+        }
+        return digit;
+    }
+
+    private int digitOf(Strategy strategy, V node) {
+        switch (strategy.kind) {
+            case KIND_FIELD: {
+                try {
+                    int value = strategy.field.getInt(node);
+                    if (value >= 0 && value <= 9) return value;
+                } catch (IllegalAccessException ignored) {}
+                if (!strategy.isNumPad) return NONE;
+                int fromText = textOfChild(strategy, node);
+                return fromText != NONE ? fromText : 0;
+            }
+            case KIND_TEXT_SELF: {
+                int digit = parseDigit(tree.text(node));
+                if (digit != NONE) return digit;
+                if (strategy.isNumPad) return 0;
+                return parseDigit(tree.contentDescription(node));
+            }
+            case KIND_TEXT_CHILD: {
+                int digit = textOfChild(strategy, node);
+                return digit != NONE ? digit : 0;
+            }
+            case KIND_DESCRIPTION:
+                return parseDigit(tree.contentDescription(node));
+            case KIND_NUMPAD:
+                // 即使找不到具体digit值，这也应该是一个数字键
+                return 0;
+            default:
+                return NONE;
+        }
+    }
+
+    private int textOfChild(Strategy strategy, V node) {
+        if (strategy.textChildIndex < 0) return NONE;
+        if (strategy.textChildIndex >= tree.childCount(node)) return NONE;
+        V child = tree.childAt(node, strategy.textChildIndex);
+        return tree.isText(child) ? parseDigit(tree.text(child)) : NONE;
+    }
+
+    /**
+     * 某个类的数字提取策略，解析完成后不可变
+     */
+    private static final class Strategy {
+        final int kind;
+        final Field field;
+        final int textChildIndex;
+        final boolean isNumPad;
+
+        Strategy(int kind, Field field, int textChildIndex, boolean isNumPad) {
+            this.kind = kind;
+            this.field = field;
+            this.textChildIndex = textChildIndex;
+            this.isNumPad = isNumPad;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.randompin.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按事件时间的来源分组的双击检测
+ * 指针 Hook（PhoneWindowManager、DecorView、Launcher）上报的是按下时间；
+ * 壁纸点击命令由桌面在抬起时发送，只能用命令到达的时间，比同一次按下晚 60-300ms。
+ * 两类时间混进同一个检测器时，一次单击的按下和抬起就会被当成双击，
+ * 所以每类来源各用一个 {@link TapDetector}。
+ *
+ * 两个检测器都可能对同一次双击给出结果（按下时一次、抬起时一次），
+ * 任一检测器触发后 {@link TapDetector#DOUBLE_TAP_TIMEOUT} 内的其他触发都视为同一个手势，只返回一次 true。
+ */
+public final class DoubleTapGate {
+
+    /** 事件时间为按下时刻的来源 */
+    public static final int SOURCE_POINTER_DOWN = 0;
+    /** 事件时间为壁纸命令到达时刻（抬起之后）的来源 */
+    public static final int SOURCE_WALLPAPER_COMMAND = 1;
+
+    private final TapDetector[] detectors = {new TapDetector(), new TapDetector()};
+    private final AtomicLong lastFired = new AtomicLong(Long.MIN_VALUE / 2);
+
+    /**
+     * 上报一次点击
+     * @param source {@link #SOURCE_POINTER_DOWN} 或 {@link #SOURCE_WALLPAPER_COMMAND}
+     * @param eventTime 事件时间 (SystemClock.uptimeMillis 时基)
+     * @return 构成一个新的双击手势时返回 true，且只有一个上报者会得到 true
+     */
+    public boolean onTap(int source, long eventTime, float x, float y) {
+        if (!detectors[source].onDown(eventTime, x, y)) {
+            return false;
+        }
+        while (true) {
+            long previous = lastFired.get();
+            if (eventTime - previous <= TapDetector.DOUBLE_TAP_TIMEOUT && previous - eventTime <= TapDetector.DOUBLE_TAP_TIMEOUT) {
+                // 另一类来源已经为这个手势触发过
+                return false;
+            }
+            if (lastFired.compareAndSet(previous, eventTime)) {
+                return true;
+            }
+        }
+    }
+
+    public void reset() {
+        for (TapDetector detector : detectors) {
+            detector.reset();
+        }
+        lastFired.set(Long.MIN_VALUE / 2);
+    }
+}
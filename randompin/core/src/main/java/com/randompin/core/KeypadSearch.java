@@ -0,0 +1,65 @@
+package com.randompin.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数字键盘容器搜索
+ * 单次遍历整棵视图树，每个视图最多被判定一次；找到键盘后不再深入其子树。
+ */
+public final class KeypadSearch {
+
+    /** 一个容器至少包含这么多数字键才视为键盘 */
+    public static final int MIN_DIGIT_KEYS = 10;
+
+    private KeypadSearch() {}
+
+    /**
+     * 找出 root 下所有直接包含至少 {@link #MIN_DIGIT_KEYS} 个数字键的容器
+     * @param out 找到的容器按遍历顺序追加到这里
+     */
+    public static <V> void locate(ViewTree<V> tree, DigitClassifier<V> digits, V root, List<V> out) {
+        if (root == null) return;
+
+        ArrayList<V> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            V node = stack.remove(stack.size() - 1);
+            if (!tree.isGroup(node)) continue;
+
+            int mark = stack.size();
+            int digitCount = 0;
+            int childCount = tree.childCount(node);
+            for (int i = 0; i < childCount; i++) {
+                V child = tree.childAt(node, i);
+                if (digits.isDigitKey(child)) {
+                    digitCount++;
+                } else if (tree.isGroup(child)) {
+                    stack.add(child);
+                }
+            }
+
+            if (digitCount >= MIN_DIGIT_KEYS) {
+                // 键盘内部不会再嵌套键盘，丢弃刚压入的子容器
+                while (stack.size() > mark) {
+                    stack.remove(stack.size() - 1);
+                }
+                out.add(node);
+            }
+        }
+    }
+
+    /**
+     * 容器中直接包含的数字键数量
+     */
+    public static <V> int countDigitKeys(ViewTree<V> tree, DigitClassifier<V> digits, V container) {
+        int count = 0;
+        int childCount = tree.childCount(container);
+        for (int i = 0; i < childCount; i++) {
+            if (digits.isDigitKey(tree.childAt(container, i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
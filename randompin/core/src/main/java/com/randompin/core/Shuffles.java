@@ -0,0 +1,182 @@
+package com.randompin.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 数字键盘洗牌策略
+ *
+ * HARD：交换按键的 ID 与 LayoutParams 后清空容器再逐个加回，
+ *       在 Android 上会触发 ConstraintLayout 的完整测量布局
+ * LABEL_REMAP：所有视图原地不动，只改写每个按键发送和显示的数字
+ *       （数字字段、数字标签、字母标签、无障碍描述），不重组视图层级
+ */
+public final class Shuffles {
+
+    private static final String[] DIGIT_TEXT = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+
+    private Shuffles() {}
+
+    /**
+     * Fisher-Yates 生成 0..n-1 的随机排列
+     */
+    public static int[] randomPermutation(int n, Random random) {
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) {
+            perm[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = perm[i];
+            perm[i] = perm[j];
+            perm[j] = tmp;
+        }
+        return perm;
+    }
+
+    /**
+     * 暴力洗牌：剥离出数字键后直接重构容器
+     * @param perm 数字键数量不等于排列长度时用 random 重新生成
+     * @return 洗牌的数字键数量，不足 10 个时返回实际数量且不做任何修改
+     */
+    public static <V> int hard(ViewTree<V> tree, DigitClassifier<V> digits, V container, int[] perm, Random random) {
+        int childCount = tree.childCount(container);
+        List<V> digitButtons = new ArrayList<>();
+        List<V> originalChildren = new ArrayList<>(childCount);
+        int[] originalIds = new int[childCount];
+        Object[] originalLayoutParams = new Object[childCount];
+
+        // 第一步：分类，保存原位按键的 ID 和布局约束参数（解决 ConstraintLayout 不受 addView 顺序影响的问题）
+        for (int i = 0; i < childCount; i++) {
+            V child = tree.childAt(container, i);
+            originalChildren.add(child);
+            if (digits.isDigitKey(child)) {
+                originalIds[digitButtons.size()] = tree.id(child);
+                originalLayoutParams[digitButtons.size()] = tree.layoutParams(child);
+                digitButtons.add(child);
+            }
+        }
+
+        int n = digitButtons.size();
+        if (n < 10) {
+            return n;
+        }
+
+        // 第二步：按排列取出洗牌后的按键
+        if (perm.length != n) {
+            perm = randomPermutation(n, random);
+        }
+        List<V> shuffled = new ArrayList<>(n);
+        for (int index : perm) {
+            shuffled.add(digitButtons.get(index));
+        }
+
+        // 第三步：把原本的 ID 和 LayoutParams 覆盖回洗牌后的按键上，让布局把它们约束在原本的位置
+        for (int i = 0; i < n; i++) {
+            V button = shuffled.get(i);
+            tree.setId(button, originalIds[i]);
+            tree.setLayoutParams(button, originalLayoutParams[i]);
+        }
+
+        // 第四步：重组视图层级，保持原有索引位置的含义，但数字键已经被掉包
+        tree.removeAllChildren(container);
+        int digitIndex = 0;
+        for (V original : originalChildren) {
+            if (digits.isDigitKey(original) && digitIndex < n) {
+                tree.addChild(container, shuffled.get(digitIndex++));
+            } else {
+                tree.addChild(container, original);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 标签重映射：原位置第 d 个数字键改为发送并显示 perm[d]
+     * @return 某个键的数字字段写入失败时返回 false
+     */
+    public static <V> boolean remap(ViewTree<V> tree, DigitClassifier<V> digits, RemapState<V> state, int[] perm) {
+        for (int d = 0; d < 10; d++) {
+            V key = state.keys[d];
+            int digit = perm[d];
+            if (!digits.setDigit(key, digit)) {
+                return false;
+            }
+            tree.setText(state.labels[d], DIGIT_TEXT[digit]);
+            if (state.subLabels[d] != null) {
+                tree.setText(state.subLabels[d], state.subLabelText[digit]);
+            }
+            tree.setContentDescription(key, state.descriptions[digit]);
+        }
+        return true;
+    }
+
+    /**
+     * 标签重映射所需的原始状态，按原始数字索引（每个键盘只记录一次）
+     */
+    public static final class RemapState<V> {
+        public final V[] keys;
+        final V[] labels;
+        final V[] subLabels;
+        final CharSequence[] subLabelText;
+        final CharSequence[] descriptions;
+
+        private RemapState(V[] keys, V[] labels, V[] subLabels, CharSequence[] subLabelText, CharSequence[] descriptions) {
+            this.keys = keys;
+            this.labels = labels;
+            this.subLabels = subLabels;
+            this.subLabelText = subLabelText;
+            this.descriptions = descriptions;
+        }
+
+        /**
+         * 记录容器中 10 个数字键的原始状态
+         * @return 数字键不是 0-9 各一个、或者不能通过数字字段重映射时返回 null
+         */
+        @SuppressWarnings("unchecked")
+        public static <V> RemapState<V> capture(ViewTree<V> tree, DigitClassifier<V> digits, V container) {
+            Object[] keys = new Object[10];
+            int childCount = tree.childCount(container);
+            for (int i = 0; i < childCount; i++) {
+                V child = tree.childAt(container, i);
+                if (!digits.isDigitKey(child)) continue;
+                if (!digits.canRemap(child)) return null;
+                int digit = digits.digitOf(child);
+                if (keys[digit] != null) return null;
+                keys[digit] = child;
+            }
+
+            Object[] labels = new Object[10];
+            Object[] subLabels = new Object[10];
+            CharSequence[] subLabelText = new CharSequence[10];
+            CharSequence[] descriptions = new CharSequence[10];
+            for (int d = 0; d < 10; d++) {
+                V key = (V) keys[d];
+                if (key == null) return null;
+                V label = digits.digitLabel(key);
+                if (label == null) return null;
+                V subLabel = findSubLabel(tree, key, label);
+                labels[d] = label;
+                subLabels[d] = subLabel;
+                subLabelText[d] = subLabel != null ? tree.text(subLabel) : null;
+                descriptions[d] = tree.contentDescription(key);
+            }
+            return new RemapState<>((V[]) keys, (V[]) labels, (V[]) subLabels, subLabelText, descriptions);
+        }
+
+        /**
+         * NumPadKey 中除数字外的字母标签（klondike_text）
+         */
+        private static <V> V findSubLabel(ViewTree<V> tree, V key, V label) {
+            int childCount = tree.childCount(key);
+            for (int i = 0; i < childCount; i++) {
+                V child = tree.childAt(key, i);
+                if (tree.isText(child) && child != label) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.randompin.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁、无分配的双击状态机
+ * 上一次按下的 时间 / 坐标 打包在一个 AtomicLong 里，多个输入线程和 binder 线程并发上报时用 CAS 更新:
+ *   高 32 位: 事件时间 (uptime 毫秒的低 32 位，按差值比较可以跨越回绕)，其最低位为"可配对"标志
+ *   中 16 位: 屏幕 X 坐标
+ *   低 16 位: 屏幕 Y 坐标
+ * 同一次物理按下会被 PhoneWindowManager、DecorView 等多个 Hook 同时上报，
+ * 时间和位置都几乎相同的上报视为重复，直接忽略。
+ * 只有事件时间取自同一时刻（都是按下时间）的来源才能共用一个检测器，见 {@link DoubleTapGate}。
+ */
+public final class TapDetector {
+
+    /** 两次按下的最大间隔 */
+    public static final int DOUBLE_TAP_TIMEOUT = 400; // 毫秒
+    /** 该间隔内、位置相同的按下视为同一次按下的重复上报 */
+    public static final int DUPLICATE_WINDOW = 50; // 毫秒
+    /** 两次按下允许的位置偏移 */
+    public static final int TAP_SLOP = 100; // 像素
+
+    /** 时间字段最低位：1 表示这次按下还可以和下一次组成双击，0 表示已经用掉 */
+    private static final long ARMED = 1L << 32;
+
+    private final AtomicLong lastDown = new AtomicLong(0);
+
+    /**
+     * 上报一次按下
+     * @param eventTime 事件时间 (SystemClock.uptimeMillis 时基)
+     * @param x 屏幕坐标
+     * @param y 屏幕坐标
+     * @return 构成双击时返回 true，且只有一个上报者会得到 true
+     */
+    public boolean onDown(long eventTime, float x, float y) {
+        long current = pack(eventTime, x, y);
+        while (true) {
+            long previous = lastDown.get();
+            if (isNear(previous, current)) {
+                int elapsed = timeOf(current) - timeOf(previous);
+                if (elapsed > -DUPLICATE_WINDOW && elapsed < DUPLICATE_WINDOW) {
+                    // 同一次按下的重复上报（包括已经触发过双击的第二次按下）
+                    return false;
+                }
+                if ((previous & ARMED) != 0 && elapsed > 0 && elapsed <= DOUBLE_TAP_TIMEOUT) {
+                    // 第二次按下：记录下来但标记为已用，第三次按下重新开始计数
+                    if (lastDown.compareAndSet(previous, current & ~ARMED)) {
+                        return true;
+                    }
+                    continue;
+                }
+            }
+            if (lastDown.compareAndSet(previous, current)) {
+                return false;
+            }
+        }
+    }
+
+    public void reset() {
+        lastDown.set(0);
+    }
+
+    private static long pack(long eventTime, float x, float y) {
+        // 占用时间的最低位作为标志，只损失 1 毫秒精度
+        long time = (eventTime & 0xFFFFFFFFL) | 1;
+        return time << 32 | (clamp(x) & 0xFFFFL) << 16 | (clamp(y) & 0xFFFFL);
+    }
+
+    private static int timeOf(long packed) {
+        return (int) (packed >>> 32) | 1;
+    }
+
+    private static boolean isNear(long a, long b) {
+        int dx = (short) (a >>> 16) - (short) (b >>> 16);
+        int dy = (short) a - (short) b;
+        return dx * dx + dy * dy <= TAP_SLOP * TAP_SLOP;
+    }
+
+    private static int clamp(float value) {
+        if (value > Short.MAX_VALUE) return Short.MAX_VALUE;
+        if (value < Short.MIN_VALUE) return Short.MIN_VALUE;
+        return (int) value;
+    }
+}
@@ -0,0 +1,42 @@
+package com.randompin.core;
+
+/**
+ * 视图树抽象层
+ * 核心算法（键盘容器搜索、数字键识别、洗牌）只通过该接口访问视图，不依赖 android.view，
+ * 模块中由 android.view.View 的适配器实现，基准测试中由合成的假视图实现。
+ * 实现应为无状态单例，访问时不分配对象。
+ *
+ * @param <V> 视图类型
+ */
+public interface ViewTree<V> {
+
+    /** 是否为容器（ViewGroup） */
+    boolean isGroup(V node);
+
+    int childCount(V group);
+
+    V childAt(V group, int index);
+
+    /** 是否为文本视图（TextView） */
+    boolean isText(V node);
+
+    CharSequence text(V node);
+
+    void setText(V node, CharSequence text);
+
+    CharSequence contentDescription(V node);
+
+    void setContentDescription(V node, CharSequence description);
+
+    int id(V node);
+
+    void setId(V node, int id);
+
+    Object layoutParams(V node);
+
+    void setLayoutParams(V node, Object params);
+
+    void removeAllChildren(V group);
+
+    void addChild(V group, V child);
+}
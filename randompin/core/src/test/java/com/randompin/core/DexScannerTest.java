@@ -0,0 +1,110 @@
+package com.randompin.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * renamed-numpad.dex 模拟一个改了类名和数字字段名的厂商 SystemUI，相当于以下源码：
+ * <pre>
+ * package com.android.keyguard;
+ * public abstract class KeyguardPinBasedInputView extends android.widget.LinearLayout {}
+ *
+ * package com.oem.keyguard;
+ * public class OemNumPadKey extends android.view.ViewGroup {
+ *     private static int sDigitCount;
+ *     private String mDigitText;
+ *     private int mKeyDigit;
+ *     private int mTextColor;
+ *     public static class Large extends OemNumPadKey {}
+ * }
+ * public abstract class OemAbstractPinView extends KeyguardPinBasedInputView {}
+ * public class OemPinView extends KeyguardPinBasedInputView {}
+ * </pre>
+ */
+public class DexScannerTest {
+
+    private static final String SAMPLE = "renamed-numpad.dex";
+
+    @Test
+    public void findsRenamedNumPadKeyAndDigitField() throws IOException {
+        DexScanner.Result result = DexScanner.scanDex(Collections.singletonList(sample()));
+
+        assertEquals(5, result.classCount);
+        assertEquals("com.oem.keyguard.OemNumPadKey", result.numPadKeyClass);
+        assertEquals(new HashSet<>(Arrays.asList("com.oem.keyguard.OemNumPadKey", "com.oem.keyguard.OemNumPadKey$Large")),
+            new HashSet<>(result.numPadKeyClasses));
+        // 静态字段和非 int 字段即使名字里有 digit 也不算
+        assertEquals("com.oem.keyguard.OemNumPadKey", result.digitFieldOwner);
+        assertEquals("mKeyDigit", result.digitFieldName);
+        // 抽象类不计入
+        assertEquals(Collections.singletonList("com.oem.keyguard.OemPinView"), result.pinViewClasses);
+    }
+
+    @Test
+    public void scansClassesDexInsideApk() throws IOException {
+        File apk = File.createTempFile("systemui", ".apk");
+        try {
+            ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(apk));
+            try {
+                zip.putNextEntry(new ZipEntry("classes.dex"));
+                zip.write(sample());
+                zip.closeEntry();
+                // 子目录中的 dex 不属于主 APK 的类
+                zip.putNextEntry(new ZipEntry("assets/classes2.dex"));
+                zip.write(new byte[] {1, 2, 3});
+                zip.closeEntry();
+            } finally {
+                zip.close();
+            }
+
+            DexScanner.Result result = DexScanner.scanApks(Collections.singletonList(apk));
+            assertEquals("com.oem.keyguard.OemNumPadKey", result.numPadKeyClass);
+            assertEquals("mKeyDigit", result.digitFieldName);
+        } finally {
+            apk.delete();
+        }
+    }
+
+    @Test
+    public void emptyInputFindsNothing() throws IOException {
+        DexScanner.Result result = DexScanner.scanDex(Collections.<byte[]>emptyList());
+        assertNull(result.numPadKeyClass);
+        assertEquals(0, result.classCount);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonDexInput() {
+        DexScanner.scanDex(Collections.singletonList(new byte[0x70]));
+    }
+
+    private static byte[] sample() throws IOException {
+        InputStream in = DexScannerTest.class.getResourceAsStream(SAMPLE);
+        if (in == null) {
+            throw new IOException(SAMPLE + " not found");
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
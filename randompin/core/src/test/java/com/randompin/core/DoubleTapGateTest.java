@@ -0,0 +1,67 @@
+package com.randompin.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DoubleTapGateTest {
+
+    private static final float X = 540;
+    private static final float Y = 1200;
+
+    @Test
+    public void pointerDownThenWallpaperTapOfSameTouchDoesNotLock() {
+        DoubleTapGate gate = new DoubleTapGate();
+        long t = 100000;
+        // 同一次单击：指针 Hook 报按下时间，壁纸命令在抬起后到达
+        assertFalse(gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t, X, Y));
+        assertFalse(gate.onTap(DoubleTapGate.SOURCE_WALLPAPER_COMMAND, t + 150, X, Y));
+    }
+
+    @Test
+    public void doubleTapReportedByBothSourcesLocksOnce() {
+        DoubleTapGate gate = new DoubleTapGate();
+        long t = 100000;
+        assertFalse(gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t, X, Y));
+        assertFalse(gate.onTap(DoubleTapGate.SOURCE_WALLPAPER_COMMAND, t + 80, X, Y));
+        assertTrue(gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t + 250, X, Y));
+        // 第二次抬起时壁纸命令也构成双击，但属于同一个手势
+        assertFalse(gate.onTap(DoubleTapGate.SOURCE_WALLPAPER_COMMAND, t + 330, X, Y));
+    }
+
+    @Test
+    public void wallpaperCommandsAloneLock() {
+        DoubleTapGate gate = new DoubleTapGate();
+        long t = 100000;
+        assertFalse(gate.onTap(DoubleTapGate.SOURCE_WALLPAPER_COMMAND, t, X, Y));
+        assertTrue(gate.onTap(DoubleTapGate.SOURCE_WALLPAPER_COMMAND, t + 250, X, Y));
+    }
+
+    @Test
+    public void duplicateReportsOfOneDownDoNotLock() {
+        DoubleTapGate gate = new DoubleTapGate();
+        long t = 100000;
+        assertFalse(gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t, X, Y));
+        assertFalse(gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t + 2, X + 1, Y));
+    }
+
+    @Test
+    public void nextGestureLocksAgain() {
+        DoubleTapGate gate = new DoubleTapGate();
+        long t = 100000;
+        gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t, X, Y);
+        assertTrue(gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t + 250, X, Y));
+        gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t + 2000, X, Y);
+        assertTrue(gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t + 2250, X, Y));
+    }
+
+    @Test
+    public void tapsFarApartDoNotLock() {
+        DoubleTapGate gate = new DoubleTapGate();
+        long t = 100000;
+        gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t, X, Y);
+        assertFalse(gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t + 250, X + 300, Y));
+        assertFalse(gate.onTap(DoubleTapGate.SOURCE_POINTER_DOWN, t + 1000, X + 300, Y));
+    }
+}
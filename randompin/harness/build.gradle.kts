@@ -0,0 +1,38 @@
+import java.util.Properties
+
+plugins {
+    java
+    application
+}
+
+// 无设备的 Hook 安装测试台：直接编译 app 的源码，
+// 用自带的 Xposed API、Build 和 BuildConfig 代替 LSPosed 和 Android Gradle 插件生成的类
+sourceSets {
+    main {
+        java.srcDir("../app/src/main/java")
+    }
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+val androidSdk: String = Properties().let { props ->
+    val localProperties = rootProject.file("local.properties")
+    if (localProperties.isFile) {
+        localProperties.inputStream().use { props.load(it) }
+    }
+    props.getProperty("sdk.dir") ?: System.getenv("ANDROID_HOME") ?: System.getenv("ANDROID_SDK_ROOT") ?: ""
+}
+
+dependencies {
+    implementation(project(":core"))
+    // 运行时也需要 android.jar：模块的 Hook 签名引用了 View、MotionEvent 等类（只加载，不调用）
+    implementation(files("$androidSdk/platforms/android-36/android.jar"))
+}
+
+// ./gradlew :harness:run --args="--details"
+application {
+    mainClass.set("com.randompin.harness.HookHarness")
+}
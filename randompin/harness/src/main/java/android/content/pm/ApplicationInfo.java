@@ -0,0 +1,12 @@
+package android.content.pm;
+
+/**
+ * harness 替换 android.jar 中的 ApplicationInfo：只保留模块读取的字段，可以直接构造
+ */
+public class ApplicationInfo {
+    public String packageName;
+    public String dataDir;
+    public String deviceProtectedDataDir;
+    public String sourceDir;
+    public String[] splitSourceDirs;
+}
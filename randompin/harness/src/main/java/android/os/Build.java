@@ -0,0 +1,17 @@
+package android.os;
+
+/**
+ * harness 替换 android.jar 中的 Build：版本号取自 Java 系统属性 randompin.harness.sdk
+ * 每次运行使用独立的类加载器，所以同一个 JVM 里可以依次模拟多个安卓版本
+ */
+public class Build {
+
+    public static final String MANUFACTURER = "harness";
+    public static final String MODEL = "jvm";
+    public static final String FINGERPRINT = "harness/randompin/sdk" + VERSION.SDK_INT;
+
+    public static class VERSION {
+        public static final int SDK_INT = Integer.getInteger("randompin.harness.sdk", 36);
+        public static final String RELEASE = String.valueOf(SDK_INT);
+    }
+}
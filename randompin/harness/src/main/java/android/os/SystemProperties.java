@@ -0,0 +1,29 @@
+package android.os;
+
+/**
+ * harness 提供的隐藏 API SystemProperties：值取自 Java 系统属性 randompin.harness.prop.&lt;key&gt;
+ * 例如 -Drandompin.harness.prop.persist.randompin.strategy=hard
+ */
+public class SystemProperties {
+
+    private static final String PREFIX = "randompin.harness.prop.";
+
+    public static String get(String key, String def) {
+        return System.getProperty(PREFIX + key, def);
+    }
+
+    public static boolean getBoolean(String key, boolean def) {
+        String value = System.getProperty(PREFIX + key);
+        if (value == null) return def;
+        return "1".equals(value) || "true".equals(value) || "y".equals(value) || "yes".equals(value) || "on".equals(value);
+    }
+
+    public static int getInt(String key, int def) {
+        String value = System.getProperty(PREFIX + key);
+        try {
+            return value != null ? Integer.parseInt(value) : def;
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+}
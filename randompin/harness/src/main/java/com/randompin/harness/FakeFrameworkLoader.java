@@ -0,0 +1,26 @@
+package com.randompin.harness;
+
+import java.util.Map;
+
+/**
+ * 模拟 system_server / SystemUI 的类加载器
+ * 只能加载 FrameworkProfiles 为该版本编译出的类，其余交给父加载器（android.jar、JDK）
+ */
+final class FakeFrameworkLoader extends ClassLoader {
+
+    private final Map<String, byte[]> classes;
+
+    FakeFrameworkLoader(Map<String, byte[]> classes, ClassLoader parent) {
+        super(parent);
+        this.classes = classes;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytes = classes.get(name);
+        if (bytes == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,86 @@
+package com.randompin.harness;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * 在内存中编译 FrameworkProfiles 生成的源码（需要在 JDK 上运行）
+ */
+final class FrameworkCompiler {
+
+    private FrameworkCompiler() {}
+
+    /**
+     * @return 类名（含内部类）-> 字节码
+     */
+    static Map<String, byte[]> compile(Map<String, String> sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("harness must run on a JDK, not a JRE");
+        }
+        List<JavaFileObject> units = new ArrayList<>();
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            units.add(new Source(entry.getKey(), entry.getValue()));
+        }
+
+        final Map<String, ByteArrayOutputStream> outputs = new HashMap<>();
+        StandardJavaFileManager standard = compiler.getStandardFileManager(null, null, null);
+        ForwardingJavaFileManager<StandardJavaFileManager> fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, final String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        outputs.put(className, out);
+                        return out;
+                    }
+                };
+            }
+        };
+
+        StringWriter diagnostics = new StringWriter();
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"), "-proc:none", "-nowarn");
+        boolean ok = compiler.getTask(diagnostics, fileManager, null, options, null, units).call();
+        fileManager.close();
+        if (!ok) {
+            throw new IllegalStateException("Failed to compile framework profile:\n" + diagnostics);
+        }
+
+        Map<String, byte[]> classes = new HashMap<>();
+        for (Map.Entry<String, ByteArrayOutputStream> entry : outputs.entrySet()) {
+            classes.put(entry.getKey(), entry.getValue().toByteArray());
+        }
+        return classes;
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        Source(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}
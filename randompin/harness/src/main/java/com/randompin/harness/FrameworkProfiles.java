@@ -0,0 +1,178 @@
+package com.randompin.harness;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 各安卓版本 system_server 和 SystemUI 中与模块相关的类集合
+ * 只描述模块会探测的类以及它们的继承关系和方法签名（取自对应版本的 AOSP），
+ * 方法体一律抛异常：harness 只安装 Hook，不调用被 Hook 的方法。
+ * 构造函数写作 "&lt;init&gt;(参数)"，不含括号的成员是字段。
+ */
+final class FrameworkProfiles {
+
+    static final int MIN_SDK = 29;
+    static final int MAX_SDK = 36;
+
+    private FrameworkProfiles() {}
+
+    static Map<String, String> systemServer(int sdk) {
+        Profile p = new Profile();
+        p.define("com.android.server.SystemServer", null,
+            "private void startOtherServices()");
+        p.define("com.android.server.wm.ActivityRecord", null,
+            "boolean isActivityTypeHome()");
+        // 安卓11 把 setResumedActivityUncheckLocked 改名为 setLastResumedActivityUncheckLocked
+        p.define("com.android.server.wm.ActivityTaskManagerService", null,
+            sdk >= 30
+                ? "void setLastResumedActivityUncheckLocked(com.android.server.wm.ActivityRecord r, String reason)"
+                : "void setResumedActivityUncheckLocked(com.android.server.wm.ActivityRecord r, String reason)",
+            "public int startActivity(android.content.Intent intent)");
+        p.define("com.android.server.wm.Session", null,
+            "public android.os.Bundle sendWallpaperCommand(android.os.IBinder window, String action, int x, int y, int z, android.os.Bundle extras, boolean sync)",
+            "public void setWallpaperPosition(android.os.IBinder window, float x, float y, float xStep, float yStep)");
+        p.define("com.android.server.wm.WallpaperController", null,
+            sdk >= 34
+                ? "android.os.Bundle sendWindowWallpaperCommandUnchecked(Object token, String action, int x, int y, int z, android.os.Bundle extras, boolean sync)"
+                : "android.os.Bundle sendWindowWallpaperCommand(Object token, String action, int x, int y, int z, android.os.Bundle extras, boolean sync)");
+        p.define("com.android.server.wallpaper.WallpaperManagerService", null,
+            "public void setWallpaperComponent(android.content.ComponentName name)",
+            "public boolean isWallpaperSupported(String callingPackage)");
+        if (sdk >= 30) {
+            p.define("com.android.server.wallpaper.WallpaperManagerInternal", null,
+                "public void onDisplayReady(int displayId)");
+        }
+        // 安卓14 起 interceptMotionBeforeQueueingNonInteractive 多了 source / action 参数
+        p.define("com.android.server.policy.PhoneWindowManager", null,
+            "public int interceptKeyBeforeQueueing(android.view.KeyEvent event, int policyFlags)",
+            sdk >= 34
+                ? "public int interceptMotionBeforeQueueingNonInteractive(int displayId, int source, int action, long whenNanos, int policyFlags)"
+                : "public int interceptMotionBeforeQueueingNonInteractive(int displayId, long whenNanos, int policyFlags)");
+        p.define("com.android.server.input.InputManagerService", null,
+            "public void start()");
+        return p.sources;
+    }
+
+    static Map<String, String> systemUi(int sdk) {
+        Profile p = new Profile();
+        p.define("com.android.systemui.SystemUIApplication", null,
+            "public void onCreate()");
+        p.define("com.android.keyguard.KeyguardSecurityContainer", null,
+            "protected void onFinishInflate()");
+        p.define("com.android.keyguard.KeyguardSecurityViewFlipper", null,
+            "protected void onFinishInflate()");
+
+        // 数字键：安卓15 起不再重写 onFinishInflate
+        if (sdk >= 35) {
+            p.define("com.android.keyguard.NumPadKey", null,
+                "private int mDigit",
+                "<init>(android.content.Context context)",
+                "<init>(android.content.Context context, android.util.AttributeSet attrs)",
+                "<init>(android.content.Context context, android.util.AttributeSet attrs, int defStyle)",
+                "<init>(android.content.Context context, android.util.AttributeSet attrs, int defStyle, int contentResource)");
+        } else {
+            p.define("com.android.keyguard.NumPadKey", null,
+                "private int mDigit",
+                "<init>(android.content.Context context)",
+                "<init>(android.content.Context context, android.util.AttributeSet attrs)",
+                "<init>(android.content.Context context, android.util.AttributeSet attrs, int defStyle)",
+                "<init>(android.content.Context context, android.util.AttributeSet attrs, int defStyle, int contentResource)",
+                "protected void onFinishInflate()");
+        }
+        if (sdk >= 33) {
+            p.define("com.android.keyguard.NumPadAnimator", null,
+                "void expand()");
+        }
+
+        // PIN 视图：安卓12 起生命周期回调移到 ViewController
+        if (sdk >= 31) {
+            p.define("com.android.keyguard.KeyguardInputView", null,
+                "protected void onFinishInflate()");
+            p.define("com.android.keyguard.KeyguardAbsKeyInputView", "com.android.keyguard.KeyguardInputView",
+                "protected void onFinishInflate()");
+            p.define("com.android.keyguard.KeyguardPinBasedInputView", "com.android.keyguard.KeyguardAbsKeyInputView",
+                "protected void onFinishInflate()");
+
+            p.define("com.android.keyguard.KeyguardInputViewController", null,
+                "protected void onViewAttached()",
+                "public void onResume(int reason)",
+                "public void onPause()");
+            p.define("com.android.keyguard.KeyguardAbsKeyInputViewController", "com.android.keyguard.KeyguardInputViewController",
+                "public void onResume(int reason)",
+                "public void onPause()");
+            p.define("com.android.keyguard.KeyguardPinBasedInputViewController", "com.android.keyguard.KeyguardAbsKeyInputViewController",
+                "protected void onViewAttached()",
+                "public void onResume(int reason)");
+            p.define("com.android.keyguard.KeyguardPinViewController", "com.android.keyguard.KeyguardPinBasedInputViewController",
+                "protected void onViewAttached()");
+        } else {
+            p.define("com.android.keyguard.KeyguardAbsKeyInputView", null,
+                "protected void onFinishInflate()",
+                "public void onResume(int reason)",
+                "public void onPause()");
+            p.define("com.android.keyguard.KeyguardPinBasedInputView", "com.android.keyguard.KeyguardAbsKeyInputView",
+                "protected void onFinishInflate()",
+                "public void onResume(int reason)");
+        }
+        p.define("com.android.keyguard.KeyguardPINView", "com.android.keyguard.KeyguardPinBasedInputView",
+            "protected void onFinishInflate()");
+        p.define("com.android.keyguard.KeyguardSimPinView", "com.android.keyguard.KeyguardPinBasedInputView",
+            "protected void onFinishInflate()");
+        p.define("com.android.keyguard.KeyguardSimPukView", "com.android.keyguard.KeyguardPinBasedInputView",
+            "protected void onFinishInflate()");
+
+        // 弹出层：安卓13 引入新的 bouncer 架构，安卓14 删除旧的 KeyguardBouncer
+        if (sdk <= 33) {
+            p.define("com.android.systemui.statusbar.phone.KeyguardBouncer", null,
+                "public void show(boolean resetSecuritySelection)",
+                "public void hide(boolean destroyView)");
+        }
+        if (sdk >= 33) {
+            p.define("com.android.systemui.keyguard.data.repository.KeyguardBouncerRepository", null,
+                "public void setPrimaryShow(boolean isShowing)");
+        }
+        if (sdk >= 34) {
+            p.define("com.android.systemui.bouncer.domain.interactor.PrimaryBouncerInteractor", null,
+                "public void show(boolean isScrimmed)",
+                "public void hide()");
+        }
+        return p.sources;
+    }
+
+    /**
+     * 按类名生成源码，父类必须先于子类定义
+     */
+    private static final class Profile {
+        final Map<String, String> sources = new LinkedHashMap<>();
+
+        void define(String className, String superclass, String... members) {
+            int dot = className.lastIndexOf('.');
+            String simpleName = className.substring(dot + 1);
+            StringBuilder sb = new StringBuilder();
+            sb.append("package ").append(className, 0, dot).append(";\n");
+            sb.append("public class ").append(simpleName);
+            if (superclass != null) {
+                sb.append(" extends ").append(superclass);
+            }
+            sb.append(" {\n");
+            boolean hasConstructor = false;
+            for (String member : members) {
+                if (member.startsWith("<init>")) {
+                    hasConstructor = true;
+                    sb.append("    public ").append(simpleName).append(member.substring("<init>".length()))
+                        .append(" { throw new UnsupportedOperationException(); }\n");
+                } else if (member.indexOf('(') >= 0) {
+                    sb.append("    ").append(member).append(" { throw new UnsupportedOperationException(); }\n");
+                } else {
+                    sb.append("    ").append(member).append(";\n");
+                }
+            }
+            if (hasConstructor) {
+                // 子类的隐式 super() 需要无参构造函数
+                sb.append("    protected ").append(simpleName).append("() {}\n");
+            }
+            sb.append("}\n");
+            sources.put(className, sb.toString());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.randompin.harness;
+
+import android.content.pm.ApplicationInfo;
+
+import com.randompin.xposed.MainHook;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import de.robv.android.xposed.callbacks.XC_LoadPackage;
+
+/**
+ * 在独立类加载器中执行一次 MainHook.handleLoadPackage
+ * 只通过 JDK 类型与外层交互，外层用反射调用 run
+ */
+public final class HarnessSession {
+
+    /** counters 末尾追加的 handleLoadPackage 耗时 */
+    static final int ELAPSED_NANOS = HookLedger.COUNTERS;
+
+    private HarnessSession() {}
+
+    /**
+     * @param framework 该进程的模拟框架类（类名 -> 字节码），模块自身进程传 null
+     * @param dataDir   应用数据目录，模块在其中写入探测清单
+     * @return {long[] 计数器 + 耗时, String[] 失败的探测}
+     */
+    public static Object[] run(String packageName, Map<String, byte[]> framework, String dataDir) throws Throwable {
+        ClassLoader self = HarnessSession.class.getClassLoader();
+        XC_LoadPackage.LoadPackageParam lpparam = new XC_LoadPackage.LoadPackageParam();
+        lpparam.packageName = packageName;
+        lpparam.processName = packageName;
+        lpparam.classLoader = framework != null ? new FakeFrameworkLoader(framework, self) : self;
+        lpparam.isFirstApplication = true;
+        if (!"android".equals(packageName)) {
+            ApplicationInfo appInfo = new ApplicationInfo();
+            appInfo.packageName = packageName;
+            appInfo.dataDir = dataDir;
+            lpparam.appInfo = appInfo;
+        }
+
+        MainHook hook = new MainHook();
+        long start = System.nanoTime();
+        hook.handleLoadPackage(lpparam);
+        long elapsed = System.nanoTime() - start;
+
+        // 清单在后台线程写入，等它完成后下一次运行才能读到
+        await("RandomPIN-Manifest");
+
+        long[] counters = Arrays.copyOf(HookLedger.counters(), HookLedger.COUNTERS + 1);
+        counters[ELAPSED_NANOS] = elapsed;
+        return new Object[] {counters, HookLedger.misses()};
+    }
+
+    private static void await(String threadName) throws InterruptedException {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (threadName.equals(thread.getName())
+                    && thread.getContextClassLoader() == HarnessSession.class.getClassLoader()) {
+                thread.join(2000);
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.randompin.harness;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 无设备的 Hook 安装测试台
+ * 对安卓 10-16 (SDK 29-36) 的每个版本，分别以 android、com.android.systemui 和模块自身的包名
+ * 运行 MainHook.handleLoadPackage，统计安装的 Hook 数、类查找次数、失败的类查找、
+ * 类存在但没有目标方法的探测，以及冷启动（无清单）和热启动（读取上次的清单）的安装耗时。
+ *
+ * 用法: ./gradlew :harness:run --args="[--sdk 29-36] [--runs 5] [--details] [--out hooks.tsv] [--baseline hooks.tsv]"
+ * 指定 --baseline 时，任何一行的查找或失败次数增加、或 Hook 数减少，进程都以 1 退出，可用于发版前检查。
+ */
+public final class HookHarness {
+
+    private static final String[] PACKAGES = {"android", "com.android.systemui", "com.randompin.xposed"};
+
+    /** 报告和基线文件中的计数列 */
+    private static final String[] COLUMNS = {"hooks", "lookups", "failed", "empty", "warm_lookups", "warm_failed", "warm_empty"};
+    private static final int COL_HOOKS = 0;
+
+    private HookHarness() {}
+
+    public static void main(String[] args) throws Exception {
+        int minSdk = FrameworkProfiles.MIN_SDK;
+        int maxSdk = FrameworkProfiles.MAX_SDK;
+        int runs = 5;
+        boolean details = false;
+        File out = null;
+        File baseline = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sdk": {
+                    String[] range = args[++i].split("-");
+                    minSdk = Integer.parseInt(range[0]);
+                    maxSdk = Integer.parseInt(range[range.length - 1]);
+                    break;
+                }
+                case "--runs":
+                    runs = Math.max(1, Integer.parseInt(args[++i]));
+                    break;
+                case "--details":
+                    details = true;
+                    break;
+                case "--out":
+                    out = new File(args[++i]);
+                    break;
+                case "--baseline":
+                    baseline = new File(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        File root = Files.createTempDirectory("randompin-harness").toFile();
+        Map<String, long[]> report = new LinkedHashMap<>();
+        PrintStream o = System.out;
+        o.printf("%-4s %-22s %6s %8s %7s %6s %10s | %8s %7s %6s %10s%n",
+            "sdk", "package", "hooks", "lookups", "failed", "empty", "cold(us)",
+            "lookups", "failed", "empty", "warm(us)");
+        try {
+            for (int sdk = minSdk; sdk <= maxSdk; sdk++) {
+                Map<String, byte[]> systemServer = FrameworkCompiler.compile(FrameworkProfiles.systemServer(sdk));
+                Map<String, byte[]> systemUi = FrameworkCompiler.compile(FrameworkProfiles.systemUi(sdk));
+                for (String pkg : PACKAGES) {
+                    Map<String, byte[]> framework = "android".equals(pkg) ? systemServer
+                        : "com.android.systemui".equals(pkg) ? systemUi
+                        : null;
+
+                    // 冷启动：每次都是空目录，所有类和方法都要实际探测
+                    long[] coldTimes = new long[runs];
+                    Result cold = null;
+                    for (int r = 0; r < runs; r++) {
+                        cold = run(sdk, pkg, framework, new File(root, sdk + "/" + pkg + "/cold" + r));
+                        coldTimes[r] = cold.counters[HarnessSession.ELAPSED_NANOS];
+                    }
+                    // 热启动：复用第一次冷启动写下的清单
+                    File warmDir = new File(root, sdk + "/" + pkg + "/cold0");
+                    long[] warmTimes = new long[runs];
+                    Result warm = null;
+                    for (int r = 0; r < runs; r++) {
+                        warm = run(sdk, pkg, framework, warmDir);
+                        warmTimes[r] = warm.counters[HarnessSession.ELAPSED_NANOS];
+                    }
+
+                    long[] c = cold.counters;
+                    long[] w = warm.counters;
+                    long hooks = c[HookLedger.HOOKS] - c[HookLedger.UNHOOKS];
+                    o.printf("%-4d %-22s %6d %8d %7d %6d %10d | %8d %7d %6d %10d%n",
+                        sdk, pkg, hooks,
+                        c[HookLedger.LOOKUPS], c[HookLedger.FAILED_LOOKUPS], c[HookLedger.EMPTY_PROBES], median(coldTimes) / 1000,
+                        w[HookLedger.LOOKUPS], w[HookLedger.FAILED_LOOKUPS], w[HookLedger.EMPTY_PROBES], median(warmTimes) / 1000);
+                    if (details) {
+                        for (String miss : cold.misses) {
+                            o.println("        miss " + miss);
+                        }
+                    }
+                    report.put(sdk + "\t" + pkg, new long[] {hooks,
+                        c[HookLedger.LOOKUPS], c[HookLedger.FAILED_LOOKUPS], c[HookLedger.EMPTY_PROBES],
+                        w[HookLedger.LOOKUPS], w[HookLedger.FAILED_LOOKUPS], w[HookLedger.EMPTY_PROBES]});
+                }
+            }
+        } finally {
+            delete(root);
+        }
+
+        if (out != null) {
+            write(out, report);
+            o.println("Report written to " + out);
+        }
+        if (baseline != null && !compare(read(baseline), report)) {
+            System.exit(1);
+        }
+    }
+
+    private static final class Result {
+        final long[] counters;
+        final String[] misses;
+
+        Result(long[] counters, String[] misses) {
+            this.counters = counters;
+            this.misses = misses;
+        }
+    }
+
+    /**
+     * 在新的类加载器中运行一次，相当于一次全新的进程启动
+     */
+    private static Result run(int sdk, String pkg, Map<String, byte[]> framework, File dir) throws Exception {
+        File dataDir = new File(dir, "data");
+        System.setProperty("randompin.harness.sdk", String.valueOf(sdk));
+        System.setProperty("randompin.system_data_dir", new File(dir, "system").getPath());
+
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        IsolatedLoader loader = new IsolatedLoader();
+        thread.setContextClassLoader(loader);
+        try {
+            Method run = loader.loadClass(HarnessSession.class.getName())
+                .getMethod("run", String.class, Map.class, String.class);
+            Object[] result = (Object[]) run.invoke(null, pkg, framework, dataDir.getPath());
+            return new Result((long[]) result[0], (String[]) result[1]);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("handleLoadPackage failed for " + pkg + " on SDK " + sdk, e.getCause());
+        } finally {
+            thread.setContextClassLoader(previous);
+            loader.close();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static void write(File file, Map<String, long[]> report) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("sdk\tpackage\t" + String.join("\t", COLUMNS));
+        for (Map.Entry<String, long[]> entry : report.entrySet()) {
+            StringBuilder sb = new StringBuilder(entry.getKey());
+            for (long value : entry.getValue()) {
+                sb.append('\t').append(value);
+            }
+            lines.add(sb.toString());
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, long[]> read(File file) throws IOException {
+        Map<String, long[]> report = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split("\t");
+            long[] values = new long[COLUMNS.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Long.parseLong(fields[i + 2]);
+            }
+            report.put(fields[0] + "\t" + fields[1], values);
+        }
+        return report;
+    }
+
+    /**
+     * 探测次数只允许减少，Hook 数只允许增加（减少说明有功能在该版本上失效）
+     * @return 没有回退时返回 true
+     */
+    private static boolean compare(Map<String, long[]> baseline, Map<String, long[]> current) {
+        boolean ok = true;
+        for (Map.Entry<String, long[]> entry : current.entrySet()) {
+            long[] before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            long[] after = entry.getValue();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                boolean regressed = i == COL_HOOKS ? after[i] < before[i] : after[i] > before[i];
+                if (regressed) {
+                    System.out.printf("REGRESSION %s %s: %d -> %d%n",
+                        entry.getKey().replace('\t', ' '), COLUMNS[i], before[i], after[i]);
+                    ok = false;
+                }
+            }
+        }
+        if (ok) {
+            System.out.println("No regressions against baseline");
+        }
+        return ok;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
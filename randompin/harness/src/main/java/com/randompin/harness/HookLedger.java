@@ -0,0 +1,56 @@
+package com.randompin.harness;
+
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次运行中 harness 版 Xposed API 收到的调用
+ * 每次运行都在独立的类加载器中，静态状态天然隔离
+ */
+public final class HookLedger {
+
+    static final int HOOKS = 0;
+    static final int UNHOOKS = 1;
+    static final int LOOKUPS = 2;
+    static final int FAILED_LOOKUPS = 3;
+    static final int EMPTY_PROBES = 4;
+    static final int COUNTERS = 5;
+
+    private static final long[] counters = new long[COUNTERS];
+    private static final List<String> misses = new ArrayList<>();
+
+    private HookLedger() {}
+
+    public static synchronized void hooked(Member member) {
+        counters[HOOKS]++;
+    }
+
+    public static synchronized void unhooked(Member member) {
+        counters[UNHOOKS]++;
+    }
+
+    public static synchronized void lookup(String className, boolean found) {
+        counters[LOOKUPS]++;
+        if (!found) {
+            counters[FAILED_LOOKUPS]++;
+            misses.add("class " + className);
+        }
+    }
+
+    /**
+     * 类存在但没有要挂载的方法
+     */
+    public static synchronized void emptyProbe(String probe) {
+        counters[EMPTY_PROBES]++;
+        misses.add("method " + probe);
+    }
+
+    static synchronized long[] counters() {
+        return counters.clone();
+    }
+
+    static synchronized String[] misses() {
+        return misses.toArray(new String[0]);
+    }
+}
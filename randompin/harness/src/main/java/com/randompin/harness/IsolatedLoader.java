@@ -0,0 +1,62 @@
+package com.randompin.harness;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 子优先的类加载器：每次运行重新加载模块、harness 版 Xposed API、Build 和 android.jar，
+ * 模块的静态状态（清单、Hook 列表、开关）和 Build.VERSION.SDK_INT 都从零开始，
+ * 相当于一次全新的进程启动。只有 JDK 的类与外层共享。
+ */
+final class IsolatedLoader extends URLClassLoader {
+
+    private static final String[] SHARED = {"java.", "javax.", "jdk.", "sun.", "com.sun.", "org.w3c.", "org.xml."};
+
+    IsolatedLoader() throws MalformedURLException {
+        super(classPath(), IsolatedLoader.class.getClassLoader());
+    }
+
+    private static URL[] classPath() throws MalformedURLException {
+        List<URL> urls = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                urls.add(new File(entry).toURI().toURL());
+            }
+        }
+        return urls.toArray(new URL[0]);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz == null && !isShared(name)) {
+                try {
+                    clazz = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    // 交给父加载器
+                }
+            }
+            if (clazz == null) {
+                clazz = super.loadClass(name, false);
+            }
+            if (resolve) {
+                resolveClass(clazz);
+            }
+            return clazz;
+        }
+    }
+
+    private static boolean isShared(String name) {
+        for (String prefix : SHARED) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,11 @@
+package com.randompin.xposed;
+
+/**
+ * harness 直接编译 app 的源码，这里代替 Android Gradle 插件生成的 BuildConfig（按正式包配置）
+ */
+public final class BuildConfig {
+    public static final boolean DEBUG = false;
+    public static final String APPLICATION_ID = "com.randompin.xposed";
+    public static final int VERSION_CODE = 0;
+    public static final String VERSION_NAME = "harness";
+}
@@ -0,0 +1,10 @@
+package de.robv.android.xposed;
+
+import de.robv.android.xposed.callbacks.XC_LoadPackage;
+
+/**
+ * harness 版 IXposedHookLoadPackage
+ */
+public interface IXposedHookLoadPackage {
+    void handleLoadPackage(XC_LoadPackage.LoadPackageParam lpparam) throws Throwable;
+}
@@ -0,0 +1,83 @@
+package de.robv.android.xposed;
+
+import com.randompin.harness.HookLedger;
+
+import java.lang.reflect.Member;
+
+/**
+ * harness 版 XC_MethodHook：签名与 Xposed API 82 一致，只登记不真正挂载
+ */
+public abstract class XC_MethodHook {
+
+    public final int priority;
+
+    public XC_MethodHook() {
+        this(50);
+    }
+
+    public XC_MethodHook(int priority) {
+        this.priority = priority;
+    }
+
+    protected void beforeHookedMethod(MethodHookParam param) throws Throwable {}
+
+    protected void afterHookedMethod(MethodHookParam param) throws Throwable {}
+
+    public static final class MethodHookParam {
+        public Member method;
+        public Object thisObject;
+        public Object[] args;
+        private Object result;
+        private Throwable throwable;
+        private boolean returnEarly;
+
+        public Object getResult() {
+            return result;
+        }
+
+        public void setResult(Object result) {
+            this.result = result;
+            this.throwable = null;
+            this.returnEarly = true;
+        }
+
+        public Throwable getThrowable() {
+            return throwable;
+        }
+
+        public boolean hasThrowable() {
+            return throwable != null;
+        }
+
+        public void setThrowable(Throwable throwable) {
+            this.throwable = throwable;
+            this.result = null;
+            this.returnEarly = true;
+        }
+
+        public Object getResultOrThrowable() throws Throwable {
+            if (throwable != null) throw throwable;
+            return result;
+        }
+    }
+
+    public class Unhook {
+        private final Member hookMethod;
+
+        Unhook(Member hookMethod) {
+            this.hookMethod = hookMethod;
+        }
+
+        public Member getHookedMethod() {
+            return hookMethod;
+        }
+
+        public XC_MethodHook getCallback() {
+            return XC_MethodHook.this;
+        }
+
+        public void unhook() {
+            HookLedger.unhooked(hookMethod);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package de.robv.android.xposed;
+
+/**
+ * harness 版 XC_MethodReplacement
+ */
+public abstract class XC_MethodReplacement extends XC_MethodHook {
+
+    public static final XC_MethodReplacement DO_NOTHING = returnConstant(null);
+
+    public XC_MethodReplacement() {
+        super();
+    }
+
+    public XC_MethodReplacement(int priority) {
+        super(priority);
+    }
+
+    @Override
+    protected final void beforeHookedMethod(MethodHookParam param) throws Throwable {
+        param.setResult(replaceHookedMethod(param));
+    }
+
+    @Override
+    protected final void afterHookedMethod(MethodHookParam param) throws Throwable {}
+
+    protected abstract Object replaceHookedMethod(MethodHookParam param) throws Throwable;
+
+    public static XC_MethodReplacement returnConstant(final Object result) {
+        return new XC_MethodReplacement() {
+            @Override
+            protected Object replaceHookedMethod(MethodHookParam param) throws Throwable {
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package de.robv.android.xposed;
+
+import android.content.SharedPreferences;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * harness 版 XSharedPreferences
+ * 值取自 Java 系统属性 randompin.harness.pref.&lt;key&gt;，例如 -Drandompin.harness.pref.legacy_pointer=true；
+ * 没有设置的键返回默认值，与设置界面从未保存过时一致。不会产生变更通知。
+ */
+public final class XSharedPreferences implements SharedPreferences {
+
+    static final String PROPERTY_PREFIX = "randompin.harness.pref.";
+
+    private final File file;
+    private Map<String, String> values;
+
+    public XSharedPreferences(String packageName, String prefFileName) {
+        this.file = new File(packageName, prefFileName + ".xml");
+        reload();
+    }
+
+    public boolean makeWorldReadable() {
+        return true;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized void reload() {
+        Map<String, String> map = new HashMap<>();
+        Properties properties = System.getProperties();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(PROPERTY_PREFIX)) {
+                map.put(name.substring(PROPERTY_PREFIX.length()), properties.getProperty(name));
+            }
+        }
+        values = map;
+    }
+
+    public synchronized boolean hasFileChanged() {
+        return false;
+    }
+
+    @Override
+    public synchronized Map<String, ?> getAll() {
+        return new HashMap<>(values);
+    }
+
+    @Override
+    public synchronized String getString(String key, String defValue) {
+        String value = values.get(key);
+        return value != null ? value : defValue;
+    }
+
+    @Override
+    public Set<String> getStringSet(String key, Set<String> defValues) {
+        String value = getString(key, null);
+        return value != null ? Collections.singleton(value) : defValues;
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        String value = getString(key, null);
+        return value != null ? Integer.parseInt(value) : defValue;
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        String value = getString(key, null);
+        return value != null ? Long.parseLong(value) : defValue;
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        String value = getString(key, null);
+        return value != null ? Float.parseFloat(value) : defValue;
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        String value = getString(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defValue;
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        throw new UnsupportedOperationException("read-only");
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {}
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {}
+}
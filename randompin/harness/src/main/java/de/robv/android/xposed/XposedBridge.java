@@ -0,0 +1,62 @@
+package de.robv.android.xposed;
+
+import com.randompin.harness.HookLedger;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * harness 版 XposedBridge：Hook 只记入 HookLedger，日志默认丢弃
+ */
+public final class XposedBridge {
+
+    public static final ClassLoader BOOTCLASSLOADER = XposedBridge.class.getClassLoader();
+
+    private static final boolean VERBOSE = Boolean.getBoolean("randompin.harness.verbose");
+
+    private XposedBridge() {}
+
+    public static XC_MethodHook.Unhook hookMethod(Member hookMethod, XC_MethodHook callback) {
+        HookLedger.hooked(hookMethod);
+        return callback.new Unhook(hookMethod);
+    }
+
+    /**
+     * 与真实实现相同：只挂载该类自己声明的同名方法（不含父类）
+     */
+    public static Set<XC_MethodHook.Unhook> hookAllMethods(Class<?> hookClass, String methodName, XC_MethodHook callback) {
+        Set<XC_MethodHook.Unhook> unhooks = new HashSet<>();
+        for (Method method : hookClass.getDeclaredMethods()) {
+            if (method.getName().equals(methodName)) {
+                unhooks.add(hookMethod(method, callback));
+            }
+        }
+        if (unhooks.isEmpty()) {
+            HookLedger.emptyProbe(hookClass.getName() + "#" + methodName);
+        }
+        return unhooks;
+    }
+
+    public static Set<XC_MethodHook.Unhook> hookAllConstructors(Class<?> hookClass, XC_MethodHook callback) {
+        Set<XC_MethodHook.Unhook> unhooks = new HashSet<>();
+        for (Constructor<?> constructor : hookClass.getDeclaredConstructors()) {
+            unhooks.add(hookMethod(constructor, callback));
+        }
+        return unhooks;
+    }
+
+    public static synchronized void log(String text) {
+        if (VERBOSE) {
+            System.out.println(text);
+        }
+    }
+
+    public static synchronized void log(Throwable t) {
+        if (VERBOSE) {
+            t.printStackTrace(System.out);
+        }
+    }
+}
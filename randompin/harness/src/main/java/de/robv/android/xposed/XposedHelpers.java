@@ -0,0 +1,118 @@
+package de.robv.android.xposed;
+
+import com.randompin.harness.HookLedger;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * harness 版 XposedHelpers：只实现模块用到的方法，每次类查找都记入 HookLedger
+ */
+public final class XposedHelpers {
+
+    private XposedHelpers() {}
+
+    public static final class ClassNotFoundError extends Error {
+        public ClassNotFoundError(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    public static final class InvocationTargetError extends Error {
+        public InvocationTargetError(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    public static Class<?> findClass(String className, ClassLoader classLoader) {
+        if (classLoader == null) {
+            classLoader = XposedBridge.BOOTCLASSLOADER;
+        }
+        try {
+            Class<?> clazz = Class.forName(className, false, classLoader);
+            HookLedger.lookup(className, true);
+            return clazz;
+        } catch (ClassNotFoundException | LinkageError e) {
+            HookLedger.lookup(className, false);
+            throw new ClassNotFoundError(className, e);
+        }
+    }
+
+    public static Class<?> findClassIfExists(String className, ClassLoader classLoader) {
+        try {
+            return findClass(className, classLoader);
+        } catch (ClassNotFoundError e) {
+            return null;
+        }
+    }
+
+    public static XC_MethodHook.Unhook findAndHookMethod(Class<?> clazz, String methodName, Object... parameterTypesAndCallback) {
+        if (parameterTypesAndCallback.length == 0
+                || !(parameterTypesAndCallback[parameterTypesAndCallback.length - 1] instanceof XC_MethodHook)) {
+            throw new IllegalArgumentException("no callback defined");
+        }
+        XC_MethodHook callback = (XC_MethodHook) parameterTypesAndCallback[parameterTypesAndCallback.length - 1];
+        Class<?>[] parameterTypes = new Class<?>[parameterTypesAndCallback.length - 1];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Object type = parameterTypesAndCallback[i];
+            parameterTypes[i] = type instanceof Class ? (Class<?>) type : findClass((String) type, clazz.getClassLoader());
+        }
+        Method method;
+        try {
+            method = clazz.getDeclaredMethod(methodName, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            HookLedger.emptyProbe(clazz.getName() + "#" + methodName + Arrays.toString(parameterTypes));
+            throw new NoSuchMethodError(clazz.getName() + "#" + methodName);
+        }
+        return XposedBridge.hookMethod(method, callback);
+    }
+
+    public static XC_MethodHook.Unhook findAndHookMethod(String className, ClassLoader classLoader, String methodName, Object... parameterTypesAndCallback) {
+        return findAndHookMethod(findClass(className, classLoader), methodName, parameterTypesAndCallback);
+    }
+
+    public static Object callMethod(Object obj, String methodName, Object... args) {
+        return invoke(obj.getClass(), obj, methodName, args);
+    }
+
+    public static Object callStaticMethod(Class<?> clazz, String methodName, Object... args) {
+        return invoke(clazz, null, methodName, args);
+    }
+
+    public static Object getObjectField(Object obj, String fieldName) {
+        for (Class<?> c = obj.getClass(); c != null; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                return field.get(obj);
+            } catch (NoSuchFieldException e) {
+                // 继续查找父类
+            } catch (IllegalAccessException e) {
+                throw new IllegalAccessError(e.getMessage());
+            }
+        }
+        throw new NoSuchFieldError(obj.getClass().getName() + "#" + fieldName);
+    }
+
+    private static Object invoke(Class<?> clazz, Object obj, String methodName, Object[] args) {
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (method.getName().equals(methodName) && method.getParameterTypes().length == args.length) {
+                    try {
+                        method.setAccessible(true);
+                        return method.invoke(obj, args);
+                    } catch (IllegalArgumentException e) {
+                        // 参数类型不匹配，继续尝试其他重载
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalAccessError(e.getMessage());
+                    } catch (InvocationTargetException e) {
+                        throw new InvocationTargetError(e.getCause());
+                    }
+                }
+            }
+        }
+        throw new NoSuchMethodError(clazz.getName() + "#" + methodName);
+    }
+}
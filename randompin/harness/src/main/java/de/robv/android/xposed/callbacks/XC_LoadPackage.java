@@ -0,0 +1,19 @@
+package de.robv.android.xposed.callbacks;
+
+import android.content.pm.ApplicationInfo;
+
+/**
+ * harness 版 XC_LoadPackage：只保留 LoadPackageParam 的字段
+ */
+public abstract class XC_LoadPackage {
+
+    private XC_LoadPackage() {}
+
+    public static final class LoadPackageParam {
+        public String packageName;
+        public String processName;
+        public ClassLoader classLoader;
+        public ApplicationInfo appInfo;
+        public boolean isFirstApplication;
+    }
+}
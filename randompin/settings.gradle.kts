@@ -16,3 +16,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "RandomPIN"
 include(":app")
+include(":core")
+include(":benchmark")
+include(":harness")